@@ -0,0 +1,70 @@
+package edu.sb.poker.edu.sb.poker.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import org.glassfish.grizzly.http.server.CLStaticHttpHandler;
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.http.server.StaticHttpHandler;
+import org.glassfish.grizzly.http2.Http2AddOn;
+import org.glassfish.grizzly.http2.Http2Configuration;
+import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
+import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+
+
+/**
+ * Server backend based on the NIO based Grizzly HTTP server, which requires the Jersey Grizzly container and the Grizzly
+ * HTTP/2 module on the class path, and therefore resides within the optional source folder {@code src-grizzly}. Every network listener is extended with HTTP/2 support, which is negotiated using ALPN for
+ * TLS connections, and using prior knowledge or the HTTP/1.1 upgrade mechanism for clear text connections (h2c). Request
+ * processing is delegated to the given executor, and connections are kept alive without a request count limit. Note that
+ * the resource handlers are mapped to Grizzly's own static resource handlers, as they are based on the JDK HTTP server's API;
+ * therefore, the hot resource cache, compressed variants and fingerprinted asset paths are specific to the JDK backend, and
+ * so are TLS handshake metrics. The protocol and cipher suite preferences of the TLS configuration apply to both backends.
+ */
+public class GrizzlyServerBackend implements ServerBackend {
+	static private final int KEEP_ALIVE_TIMEOUT = 30;
+
+	private HttpServer server = null;
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void start (final URI serviceURI, final ResourceConfig configuration, final TlsConfiguration tlsConfiguration, final ExecutorService executor, final HttpResourceHandler... resourceHandlers) throws NullPointerException, IllegalStateException, IOException {
+		if (executor == null) throw new NullPointerException();
+		if (this.server != null) throw new IllegalStateException();
+
+		final SSLEngineConfigurator sslConfigurator = tlsConfiguration == null ? null : new SSLEngineConfigurator(tlsConfiguration.getContext(), false, false, false)
+			.setEnabledProtocols(tlsConfiguration.getParameters().getProtocols())
+			.setEnabledCipherSuites(tlsConfiguration.getParameters().getCipherSuites());
+		final HttpServer server = GrizzlyHttpServerFactory.createHttpServer(serviceURI, configuration, tlsConfiguration != null, sslConfigurator, false);
+		for (final NetworkListener listener : server.getListeners()) {
+			listener.registerAddOn(new Http2AddOn(Http2Configuration.builder().build()));
+			listener.getTransport().setWorkerThreadPool(executor);
+			listener.getKeepAlive().setMaxRequestsCount(-1);
+			listener.getKeepAlive().setIdleTimeoutInSeconds(KEEP_ALIVE_TIMEOUT);
+		}
+
+		for (final HttpResourceHandler resourceHandler : resourceHandlers) {
+			final HttpHandler staticHandler = resourceHandler.getResourceDirectory() == null
+				? new CLStaticHttpHandler(Thread.currentThread().getContextClassLoader(), "/")
+				: new StaticHttpHandler(resourceHandler.getResourceDirectory().toString());
+			server.getServerConfiguration().addHttpHandler(staticHandler, resourceHandler.getContextPath() + "/*");
+		}
+
+		server.start();
+		this.server = server;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void close () {
+		if (this.server != null) this.server.shutdownNow();
+		this.server = null;
+	}
+}
@@ -20,12 +20,23 @@ CREATE TABLE Document (
 	documentIdentity BIGINT NOT NULL,
 	hash CHAR(64) NOT NULL,
 	type VARCHAR(63) NOT NULL,
-	content LONGBLOB NOT NULL,
+	storageAlias ENUM("INLINE", "CHUNKED", "FILE") NOT NULL,
+	size BIGINT NOT NULL,
+	contentEncoding VARCHAR(15) NULL,
+	content LONGBLOB NULL,
 	PRIMARY KEY (documentIdentity),
 	FOREIGN KEY (documentIdentity) REFERENCES BaseEntity (identity) ON DELETE CASCADE ON UPDATE CASCADE,
 	UNIQUE KEY (hash)
 );
 
+CREATE TABLE DocumentChunk (
+	documentReference BIGINT NOT NULL,
+	sequence INTEGER NOT NULL,
+	content VARBINARY(32768) NOT NULL,
+	PRIMARY KEY (documentReference, sequence),
+	FOREIGN KEY (documentReference) REFERENCES Document (documentIdentity) ON DELETE CASCADE ON UPDATE CASCADE
+);
+
 CREATE TABLE PokerTable (
 	pokerTableIdentity BIGINT NOT NULL,
 	avatarReference BIGINT NOT NULL,
@@ -60,7 +71,8 @@ CREATE TABLE Person (
 	FOREIGN KEY (avatarReference) REFERENCES Document (documentIdentity) ON DELETE RESTRICT ON UPDATE CASCADE,
 	FOREIGN KEY (pokerTableReference) REFERENCES PokerTable (pokerTableIdentity) ON DELETE RESTRICT ON UPDATE CASCADE,
 	UNIQUE KEY (email),
-	UNIQUE KEY (pokerTableReference, position)
+	UNIQUE KEY (pokerTableReference, position),
+	KEY (surname, forename, email)
 );
 
 CREATE TABLE Card (
@@ -10,10 +10,9 @@ import java.nio.file.NoSuchFileException;
 import java.nio.file.NotDirectoryException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
 import javax.net.ssl.SSLContext;
-import org.glassfish.jersey.jdkhttp.JdkHttpServerFactory;
 import org.glassfish.jersey.server.ResourceConfig;
-import com.sun.net.httpserver.HttpServer;
 import edu.sb.poker.util.Copyright;
 import edu.sb.poker.util.Maps;
 import edu.sb.poker.util.RestJpaLifecycleProvider;
@@ -22,15 +21,17 @@ import edu.sb.poker.util.RestJpaLifecycleProvider;
 /**
  * <p>This facade is used within a Java-SE VM to programmatically deploy REST services. Programmatic server-startup is solely
  * required in Java-SE, as any Java-EE engine must ship a built-in HTTP server implementation combined with an XML-based
- * configuration. The server factory class used is Jersey-specific, while the HTTP server class used is JDK-specific.
- * There are plenty HTTP server types more suitable for production environments, such as Apache Tomcat, Grizzly, Simple, etc;
- * however, they all require a learning curve for successful configuration, while this design auto-configures itself as long as
- * the package of the service classes matches this class's package.</p>
+ * configuration. The server factory classes used are Jersey-specific, while the HTTP server is selected using a
+ * {@link ServerBackend}: The JDK HTTP server by default, or alternatively the Grizzly HTTP server supporting HTTP/2. There are
+ * plenty HTTP server types more suitable for production environments, such as Apache Tomcat, Grizzly, Simple, etc; however,
+ * they all require a learning curve for successful configuration, while this design auto-configures itself as long as the
+ * package of the service classes matches this class's package.</p>
  * <p>Note that for LAZY fetching of entities within <i>EclipseLink</i> (dynamic weaving), add this to the JVM start parameters:
  * -javaagent:[path]eclipselink.jar</p>
  */
 @Copyright(year=2013, holders="Sascha Baumeister")
 public class ApplicationContainer {
+	static private final String WEB_ROOT = "WEB-INF";
 
 	/**
 	 * Application entry point.
@@ -60,25 +61,31 @@ public class ApplicationContainer {
 
 		final URI serviceURI = URI.create((keyStorePath == null ? "http://" : "https://") + TcpServers.localAddress().getCanonicalHostName() + ":" + servicePort + "/services");
 		final SSLContext context = TcpServers.newTLSContext(keyStorePath, keyRecoveryPassword, keyManagementPassword);
-		if (context != null) context.createSSLEngine(serviceURI.getHost(), serviceURI.getPort());
+		final TlsConfiguration tlsConfiguration = context == null ? null : new TlsConfiguration(context);
+		if (tlsConfiguration != null) tlsConfiguration.getMetrics().register();
 
-		final HttpServer container = JdkHttpServerFactory.createHttpServer(serviceURI, configuration, context);
 		final HttpResourceHandler internalFileHandler = new HttpResourceHandler("/internal");
+		internalFileHandler.setAssetManifest(AssetManifest.scan(Thread.currentThread().getContextClassLoader(), WEB_ROOT));
 		final HttpResourceHandler externalFileHandler = new HttpResourceHandler("/external", resourceDirectory);
-		container.createContext(internalFileHandler.getContextPath(), internalFileHandler);
-		container.createContext(externalFileHandler.getContextPath(), externalFileHandler);
+
+		final ExecutorService executor = TcpServers.newExecutor();
+		final ServerBackend container = ServerBackend.newInstance();
+		container.start(serviceURI, configuration, tlsConfiguration, executor, internalFileHandler, externalFileHandler);
 
 		try {
 			final String origin = String.format("%s://%s:%s", serviceURI.getScheme(), serviceURI.getHost(), serviceURI.getPort());
-			System.out.format("Web container running on origin %s, enter \"quit\" to stop.\n", origin);
+			System.out.format("Web container running on origin %s using %s, enter \"quit\" to stop.\n", origin, container.getClass().getSimpleName());
 			System.out.format("Context path \"%s\" is configured for REST service access.\n", serviceURI.getPath());
+			if (tlsConfiguration != null) System.out.format("TLS protocols %s are enabled, handshake metrics are registered as MBean \"%s\".\n", String.join(", ", tlsConfiguration.getParameters().getProtocols()), TlsMetrics.OBJECT_NAME);
 			System.out.format("Context path \"%s\" is configured for class loader access.\n", internalFileHandler.getContextPath());
+			System.out.format("Asset manifest %s%s/%s lists %s fingerprinted resources.\n", origin, internalFileHandler.getContextPath(), AssetManifest.MANIFEST_PATH, internalFileHandler.getAssetManifest().getFingerprintedPaths().size());
 			System.out.format("Context path \"%s\" is configured for file system access within \"%s\".\n", externalFileHandler.getContextPath(), resourceDirectory);
 			System.out.format("Bookmark %s%s/WEB-INF/radio.html for application access.\n", origin, internalFileHandler.getContextPath());
 			final BufferedReader charSource = new BufferedReader(new InputStreamReader(System.in));
 			while (!"quit".equals(charSource.readLine()));
 		} finally {
-			container.stop(0);
+			container.close();
+			executor.shutdown();
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,205 @@
+package edu.sb.poker.edu.sb.poker.server;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import edu.sb.poker.util.HashCodes;
+
+
+/**
+ * Instances of this class map class loader based resources (assets) to fingerprinted paths, which embed a prefix of the
+ * resource's content hash into it's file name, for example {@code WEB-INF/js/app.js} to {@code WEB-INF/js/app.3fa9c2d1e0b4a7f6.js}.
+ * As a fingerprinted path changes whenever the content does, responses for such paths can be cached for a year as immutable,
+ * which allows returning clients to load an application without any asset requests. The manifest is created once upon
+ * startup by scanning the class path, and can be rendered as JSON object mapping logical paths to fingerprinted paths, which
+ * allows HTML documents to be rewritten to reference fingerprinted paths.
+ */
+public class AssetManifest {
+	static public final String MANIFEST_PATH = "asset-manifest.json";
+	static private final int FINGERPRINT_LENGTH = 16;
+
+	private final Map<String,String> fingerprintedPaths;
+	private final Map<String,String> logicalPaths;
+	private final byte[] json;
+
+
+	/**
+	 * Creates a new manifest for all class loader based resources located within the given root path. If the same resource
+	 * path is contained within multiple class path elements, the first one takes precedence, as it does for resource lookups.
+	 * @param classLoader the class loader
+	 * @param rootPath the root path relative to the class path, without leading or trailing slash
+	 * @return the asset manifest created
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static public AssetManifest scan (final ClassLoader classLoader, final String rootPath) throws NullPointerException, IOException {
+		final Map<String,String> fingerprintedPaths = new TreeMap<>();
+		for (final URL rootURL : Collections.list(classLoader.getResources(rootPath))) {
+			final URI rootURI;
+			try {
+				rootURI = rootURL.toURI();
+			} catch (final URISyntaxException exception) {
+				throw new IOException(exception);
+			}
+
+			if ("jar".equals(rootURI.getScheme())) {
+				FileSystem fileSystem;
+				boolean opened;
+				try {
+					fileSystem = FileSystems.newFileSystem(rootURI, new HashMap<>());
+					opened = true;
+				} catch (final FileSystemAlreadyExistsException exception) {
+					fileSystem = FileSystems.getFileSystem(rootURI);
+					opened = false;
+				}
+
+				try {
+					scan(fileSystem.provider().getPath(rootURI), rootPath, fingerprintedPaths);
+				} finally {
+					if (opened) fileSystem.close();
+				}
+			} else if ("file".equals(rootURI.getScheme())) {
+				scan(Paths.get(rootURI), rootPath, fingerprintedPaths);
+			}
+		}
+
+		return new AssetManifest(fingerprintedPaths);
+	}
+
+
+	/**
+	 * Adds the fingerprinted paths of all regular files within the given root directory to the given map, unless they are
+	 * already present.
+	 * @param rootDirectory the root directory
+	 * @param rootPath the root path relative to the class path
+	 * @param fingerprintedPaths the fingerprinted paths, mapped by logical path
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static private void scan (final Path rootDirectory, final String rootPath, final Map<String,String> fingerprintedPaths) throws IOException {
+		try (Stream<Path> paths = Files.walk(rootDirectory)) {
+			for (final Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+				final String relativePath = Stream.of(rootDirectory.relativize(path).toString().split("[/\\\\]")).collect(Collectors.joining("/"));
+				final String logicalPath = rootPath + "/" + relativePath;
+				if (fingerprintedPaths.containsKey(logicalPath)) continue;
+
+				final String contentHash = HashCodes.sha2HashText(256, Files.readAllBytes(path));
+				fingerprintedPaths.put(logicalPath, fingerprint(logicalPath, contentHash));
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the fingerprinted variant of the given logical path.
+	 * @param logicalPath the logical path
+	 * @param contentHash the lower case hexadecimal content hash
+	 * @return the fingerprinted path
+	 */
+	static private String fingerprint (final String logicalPath, final String contentHash) {
+		final String fingerprint = contentHash.substring(0, FINGERPRINT_LENGTH);
+		final int nameOffset = logicalPath.lastIndexOf('/') + 1;
+		final int extensionOffset = logicalPath.lastIndexOf('.');
+		return extensionOffset > nameOffset
+			? logicalPath.substring(0, extensionOffset) + "." + fingerprint + logicalPath.substring(extensionOffset)
+			: logicalPath + "." + fingerprint;
+	}
+
+
+	/**
+	 * Initializes a new instance.
+	 * @param fingerprintedPaths the fingerprinted paths, mapped by logical path
+	 * @throws NullPointerException if the given argument is {@code null}
+	 */
+	public AssetManifest (final Map<String,String> fingerprintedPaths) throws NullPointerException {
+		this.fingerprintedPaths = Collections.unmodifiableMap(new TreeMap<>(fingerprintedPaths));
+		this.logicalPaths = Collections.unmodifiableMap(fingerprintedPaths.entrySet().stream().collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey)));
+		this.json = this.fingerprintedPaths.entrySet().stream()
+			.map(entry -> "\t" + quote(entry.getKey()) + ": " + quote(entry.getValue()))
+			.collect(Collectors.joining(",\n", "{\n", "\n}\n"))
+			.getBytes(UTF_8);
+	}
+
+
+	/**
+	 * Returns the fingerprinted paths.
+	 * @return the fingerprinted paths, mapped by logical path
+	 */
+	public Map<String,String> getFingerprintedPaths () {
+		return this.fingerprintedPaths;
+	}
+
+
+	/**
+	 * Returns the fingerprinted path for the given logical path.
+	 * @param logicalPath the logical path
+	 * @return the fingerprinted path, or {@code null} for none
+	 * @throws NullPointerException if the given argument is {@code null}
+	 */
+	public String fingerprintedPath (final String logicalPath) throws NullPointerException {
+		return this.fingerprintedPaths.get(logicalPath);
+	}
+
+
+	/**
+	 * Returns the logical path for the given fingerprinted path.
+	 * @param fingerprintedPath the fingerprinted path
+	 * @return the logical path, or {@code null} if the given path is not fingerprinted
+	 * @throws NullPointerException if the given argument is {@code null}
+	 */
+	public String logicalPath (final String fingerprintedPath) throws NullPointerException {
+		return this.logicalPaths.get(fingerprintedPath);
+	}
+
+
+	/**
+	 * Returns whether or not the given fingerprinted path still matches the given current content hash of it's resource. This
+	 * is not the case if the resource has been modified since this manifest has been scanned.
+	 * @param fingerprintedPath the fingerprinted path
+	 * @param contentHash the lower case hexadecimal SHA-256 hash of the resource's current content
+	 * @return {@code true} if the fingerprinted path is current, {@code false} otherwise
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 */
+	public boolean isCurrent (final String fingerprintedPath, final String contentHash) throws NullPointerException {
+		final String logicalPath = this.logicalPaths.get(fingerprintedPath);
+		return logicalPath != null && fingerprint(logicalPath, contentHash).equals(fingerprintedPath);
+	}
+
+
+	/**
+	 * Returns the JSON representation of this manifest, which must not be modified.
+	 * @return the UTF-8 encoded JSON object mapping logical paths to fingerprinted paths
+	 */
+	public byte[] toJson () {
+		return this.json;
+	}
+
+
+	/**
+	 * Returns the given text as JSON string literal.
+	 * @param text the text
+	 * @return the quoted and escaped text
+	 */
+	static private String quote (final String text) {
+		final StringBuilder builder = new StringBuilder("\"");
+		for (final char character : text.toCharArray()) {
+			if (character == '"' | character == '\\') builder.append('\\').append(character);
+			else if (character < 0x20) builder.append(String.format("\\u%04x", (int) character));
+			else builder.append(character);
+		}
+		return builder.append('"').toString();
+	}
+}
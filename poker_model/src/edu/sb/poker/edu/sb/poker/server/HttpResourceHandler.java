@@ -1,37 +1,72 @@
 package edu.sb.poker.edu.sb.poker.server;
 
 import static edu.sb.poker.server.HttpResourceHandler.Method.GET;
+import static edu.sb.poker.server.HttpResourceHandler.Method.HEAD;
 import static edu.sb.poker.server.HttpResourceHandler.Method.OPTIONS;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.FileChannel;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.NotDirectoryException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import edu.sb.poker.util.ContentEncodings;
 import edu.sb.poker.util.Copyright;
+import edu.sb.poker.util.HashCodes;
+import edu.sb.poker.util.HttpRanges;
+import edu.sb.poker.util.HttpRanges.ByteRange;
 
 
 /**
  * HTTP handler class providing HTTP access to basic web resources contained within file systems or code repositories
- * for the JDK HTTP server.
+ * for the JDK HTTP server. Small resources are kept in a size-bounded hot resource cache, which is invalidated whenever a
+ * resource's modification time changes; they are served from memory with known content length. Larger file system resources
+ * are transferred from file channels, and larger class loader resources are copied using pooled buffers. Resources of
+ * compressible types are served compressed to clients accepting a supported content encoding; the compressed variants are
+ * cached by content hash and encoding, which avoids compressing the same content per request, and invalidates variants
+ * implicitly once a resource's content changes. Responses carry a {@code Last-Modified} validator based on the resource's
+ * modification time, and an {@code ETag} validator based on the cached content hash, or on file metadata for resources too
+ * large to be cached; conditional requests for unchanged resources are answered with 304 (not modified) without content.
+ * Optionally, an asset manifest allows resources to be requested using fingerprinted paths as well, whose responses are marked
+ * as immutable for a year; the manifest itself is available as {@value AssetManifest#MANIFEST_PATH}.
  */
 @Copyright(year = 2010, holders = "Sascha Baumeister")
 public class HttpResourceHandler implements HttpHandler {
 	static public enum Method { GET, HEAD, POST, PUT, PATCH, DELETE, CONNECT, TRACE, OPTIONS }
-	static private final short OK = 200, NO_CONTENT = 204, NOT_FOUND = 404, METHOD_NOT_ALLOWED = 405;
+	static private final short OK = 200, NO_CONTENT = 204, NOT_MODIFIED = 304, NOT_FOUND = 404, METHOD_NOT_ALLOWED = 405;
+	static private final String CACHE_CONTROL = "Cache-Control", IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable", REVALIDATE_CACHE_CONTROL = "no-cache";
+	static private final String ETAG = "ETag", LAST_MODIFIED = "Last-Modified", IF_NONE_MATCH = "If-None-Match", IF_MODIFIED_SINCE = "If-Modified-Since";
+	static private final DateTimeFormatter HTTP_DATE_FORMAT = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
 	static private final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+	static private final int MAX_CACHED_RESOURCE_SIZE = 0x40000, MAX_VARIANT_COUNT = 256;
+	static private final long MAX_CACHE_SIZE = 0x2000000L;
 	static private Map<String,String> CONTENT_TYPES = Stream.of(new String[][] {
 		{ "bin", DEFAULT_CONTENT_TYPE },
 		{ "xhtml", "application/xhtml+xml" },
@@ -48,8 +83,18 @@ public class HttpResourceHandler implements HttpHandler {
 
 	private final String contextPath;
 	private final Path contextDirectory;
-	private final Set<Method> methods = new CopyOnWriteArraySet<>(Arrays.asList(GET, OPTIONS));
+	private final Set<Method> methods = new CopyOnWriteArraySet<>(Arrays.asList(GET, HEAD, OPTIONS));
 	private final Map<String,String> contentTypes = new ConcurrentHashMap<>(CONTENT_TYPES);
+	private final Map<String,byte[]> encodedVariants = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+		static private final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry (final Map.Entry<String,byte[]> eldest) {
+			return this.size() > MAX_VARIANT_COUNT;
+		}
+	});
+	private final Map<String,CachedResource> cachedResources = new LinkedHashMap<>(16, 0.75f, true);
+	private long cacheSize = 0;
+	private volatile AssetManifest assetManifest = null;
 
 
 	/**
@@ -115,6 +160,24 @@ public class HttpResourceHandler implements HttpHandler {
 	}
 
 
+	/**
+	 * Returns the asset manifest.
+	 * @return the asset manifest mapping resources to fingerprinted paths, or {@code null} for none
+	 */
+	public AssetManifest getAssetManifest () {
+		return this.assetManifest;
+	}
+
+
+	/**
+	 * Sets the asset manifest.
+	 * @param assetManifest the asset manifest mapping resources to fingerprinted paths, or {@code null} for none
+	 */
+	public void setAssetManifest (final AssetManifest assetManifest) {
+		this.assetManifest = assetManifest;
+	}
+
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -149,7 +212,32 @@ public class HttpResourceHandler implements HttpHandler {
 		if (resourcePath == null) throw new NullPointerException();
 
 		try {
-			return this.contextDirectory == null ? null : Files.size(this.contextDirectory.resolve(resourcePath));
+			if (this.contextDirectory != null) return Files.size(this.contextDirectory.resolve(resourcePath));
+
+			final URLConnection resourceConnection = this.resourceConnection(resourcePath);
+			final long resourceSize = resourceConnection == null ? -1 : resourceConnection.getContentLengthLong();
+			return resourceSize == -1 ? null : resourceSize;
+		} catch (final IOException exception) {
+			return null;
+		}
+	}
+
+
+	/**
+	 * Returns the resource modification time.
+	 * @param resourcePath the resource path, relative to this handler's context directory
+	 * @return the resource modification time in milliseconds since 1/1/1970, or {@code null} for none
+	 * @throws NullPointerException if the given argument is {@code null}
+	 */
+	public final Long resourceModified (final String resourcePath) throws NullPointerException {
+		if (resourcePath == null) throw new NullPointerException();
+
+		try {
+			if (this.contextDirectory != null) return Files.getLastModifiedTime(this.contextDirectory.resolve(resourcePath)).toMillis();
+
+			final URLConnection resourceConnection = this.resourceConnection(resourcePath);
+			final long resourceModified = resourceConnection == null ? 0 : resourceConnection.getLastModified();
+			return resourceModified == 0 ? null : resourceModified;
 		} catch (final IOException exception) {
 			return null;
 		}
@@ -187,6 +275,61 @@ public class HttpResourceHandler implements HttpHandler {
 	}
 
 
+	/**
+	 * Returns the cached resource for the given path, reading and caching it's content if it isn't cached yet, or if the
+	 * resource has been modified since. Resources exceeding the maximum cached resource size are not cached. The least
+	 * recently used resources are evicted once the cache exceeds it's maximum size.
+	 * @param resourcePath the resource path, relative to this handler's context directory
+	 * @return the cached resource, or {@code null} if the resource is too large to be cached
+	 * @throws NullPointerException if the given argument is {@code null}
+	 * @throws NoSuchFileException if the resource doesn't exist
+	 * @throws IOException if there is an I/O related problem
+	 */
+	public final CachedResource cachedResource (final String resourcePath) throws NullPointerException, NoSuchFileException, IOException {
+		final Long resourceModified = this.resourceModified(resourcePath);
+		synchronized (this.cachedResources) {
+			final CachedResource cachedResource = this.cachedResources.get(resourcePath);
+			if (cachedResource != null && Objects.equals(cachedResource.getModified(), resourceModified)) return cachedResource;
+		}
+
+		final Long resourceSize = this.resourceSize(resourcePath);
+		if (resourceSize != null && resourceSize > MAX_CACHED_RESOURCE_SIZE) return null;
+
+		final byte[] content;
+		try (InputStream resourceStream = this.resourceStream(resourcePath)) {
+			content = resourceStream.readNBytes(MAX_CACHED_RESOURCE_SIZE + 1);
+		}
+		if (content.length > MAX_CACHED_RESOURCE_SIZE) return null;
+
+		final CachedResource cachedResource = new CachedResource(content, resourceModified);
+		synchronized (this.cachedResources) {
+			final CachedResource evictedResource = this.cachedResources.put(resourcePath, cachedResource);
+			if (evictedResource != null) this.cacheSize -= evictedResource.getContent().length;
+			this.cacheSize += content.length;
+
+			for (final Iterator<CachedResource> iterator = this.cachedResources.values().iterator(); this.cacheSize > MAX_CACHE_SIZE && iterator.hasNext(); ) {
+				this.cacheSize -= iterator.next().getContent().length;
+				iterator.remove();
+			}
+		}
+
+		return cachedResource;
+	}
+
+
+	/**
+	 * Returns a new connection to the given class loader based resource, which provides it's metadata.
+	 * @param resourcePath the resource path, relative to the class path
+	 * @return the resource connection, or {@code null} if the resource doesn't exist
+	 * @throws NullPointerException if the given argument is {@code null}
+	 * @throws IOException if there is an I/O related problem
+	 */
+	private URLConnection resourceConnection (final String resourcePath) throws NullPointerException, IOException {
+		final URL resourceURL = Thread.currentThread().getContextClassLoader().getResource(resourcePath);
+		return resourceURL == null ? null : resourceURL.openConnection();
+	}
+
+
 	/**
 	 * Handles the given HTTP exchange by copying the content of it's request path to it's response. The request path is
 	 * interpreted to be relative to the handler's context directory, all path's outside of this scope are inaccessible.
@@ -230,7 +373,8 @@ public class HttpResourceHandler implements HttpHandler {
 
 
 	/**
-	 * Handles an HTTP GET request by returning the resource content.
+	 * Handles an HTTP GET request by returning the resource content, or the requested byte ranges of file system based
+	 * resources.
 	 * @param exchange the HTTP exchange
 	 * @throws NullPointerException if the given exchange is {@code null}
 	 * @throws IllegalArgumentException if the given exchange contains syntactically invalid data
@@ -238,16 +382,183 @@ public class HttpResourceHandler implements HttpHandler {
 	 * @throws IOException if there is an I/O related problem
 	 */
 	protected void handleGetRequest (final HttpExchange exchange) throws NullPointerException, IllegalArgumentException, IllegalStateException, IOException {
-		final String resourcePath = this.resourcePath(exchange.getRequestURI().getPath());
-		exchange.getResponseHeaders().add("Content-Type", this.resourceType(resourcePath));
+		this.handleResourceRequest(exchange, true);
+	}
 
-		try (InputStream resourceStream = this.resourceStream(resourcePath)) {
+
+	/**
+	 * Handles an HTTP GET or HEAD request for the resource content. Requests whose {@code If-None-Match} header matches the
+	 * resource's entity tag, or whose {@code If-Modified-Since} header is not older than the resource's modification time,
+	 * are answered with 304 (not modified). Cached resource content is written from memory, compressed if the client accepts
+	 * a supported encoding and the resource type is compressible. Other file system based resource content is transferred
+	 * from a file channel, and other class loader based resource content is copied using a pooled buffer. HEAD requests are
+	 * answered with the same headers, including the content length if known, but without content. Byte ranges are only
+	 * honored if the request's {@code If-Range} header is absent or still matches the resource. Fingerprinted paths
+	 * are resolved using the asset manifest, and answered with 404 (not found) if the resource's content no longer matches
+	 * the fingerprint; otherwise, responses for cached resources are marked as immutable, as their fingerprint has been
+	 * verified.
+	 * @param exchange the HTTP exchange
+	 * @param sendContent {@code true} for GET requests, {@code false} for HEAD requests
+	 * @throws NullPointerException if the given exchange is {@code null}
+	 * @throws IllegalArgumentException if the given exchange contains syntactically invalid data
+	 * @throws IOException if there is an I/O related problem
+	 */
+	protected void handleResourceRequest (final HttpExchange exchange, final boolean sendContent) throws NullPointerException, IllegalArgumentException, IOException {
+		final String requestPath = this.resourcePath(exchange.getRequestURI().getPath());
+		final AssetManifest assetManifest = this.assetManifest;
+		if (assetManifest != null && requestPath.equals(AssetManifest.MANIFEST_PATH)) {
+			this.handleManifestRequest(exchange, assetManifest, sendContent);
+			return;
+		}
+
+		final String logicalPath = assetManifest == null ? null : assetManifest.logicalPath(requestPath);
+		final String resourcePath = logicalPath == null ? requestPath : logicalPath;
+		final String resourceType = this.resourceType(resourcePath);
+		final Headers requestHeaders = exchange.getRequestHeaders(), responseHeaders = exchange.getResponseHeaders();
+
+		try {
+			final CachedResource cachedResource = this.cachedResource(resourcePath);
+			if (logicalPath != null && cachedResource != null) {
+				// the resource may have changed since the manifest has been scanned, which renders it's fingerprinted path stale
+				if (!assetManifest.isCurrent(requestPath, cachedResource.getHash())) {
+					exchange.sendResponseHeaders(NOT_FOUND, -1);
+					return;
+				}
+
+				responseHeaders.add(CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL);
+			}
+			final Long resourceModified = cachedResource == null ? this.resourceModified(resourcePath) : cachedResource.getModified();
+			final Long resourceSize = cachedResource == null ? this.resourceSize(resourcePath) : Long.valueOf(cachedResource.getContent().length);
+			final String resourceTag = cachedResource != null
+				? cachedResource.getHash()
+				: (resourceModified == null || resourceSize == null ? null : Long.toHexString(resourceModified) + "-" + Long.toHexString(resourceSize));
+
+			final String identityTag = resourceTag == null ? null : "\"" + resourceTag + "\"";
+			final List<ByteRange> ranges = !sendContent || this.contextDirectory == null || resourceSize == null || !isRangeApplicable(requestHeaders, identityTag, resourceModified)
+				? null
+				: HttpRanges.parse(requestHeaders.getFirst(HttpRanges.RANGE), resourceSize);
+			final boolean compressible = ContentEncodings.isCompressible(resourceType);
+			final String encoding = !compressible || ranges != null || cachedResource == null || cachedResource.getContent().length == 0
+				? null
+				: ContentEncodings.negotiate(requestHeaders.getFirst(ContentEncodings.ACCEPT_ENCODING));
+			final String entityTag = resourceTag == null || encoding == null ? identityTag : "\"" + resourceTag + "-" + encoding + "\"";
+
+			if (entityTag != null) responseHeaders.add(ETAG, entityTag);
+			if (resourceModified != null) responseHeaders.add(LAST_MODIFIED, HTTP_DATE_FORMAT.format(Instant.ofEpochMilli(resourceModified)));
+			if (compressible) responseHeaders.add(ContentEncodings.VARY, ContentEncodings.ACCEPT_ENCODING);
+			if (isNotModified(requestHeaders, entityTag, resourceModified)) {
+				exchange.sendResponseHeaders(NOT_MODIFIED, -1);
+				return;
+			}
+
+			if (ranges != null) {
+				this.handleRangeRequest(exchange, resourcePath, resourceSize, ranges);
+				return;
+			}
+
+			responseHeaders.add("Content-Type", resourceType);
+			if (this.contextDirectory != null) responseHeaders.add(HttpRanges.ACCEPT_RANGES, HttpRanges.BYTES);
+
+			if (cachedResource != null) {
+				final byte[] content = cachedResource.getContent();
+				final byte[] body = encoding == null ? content : this.encodedVariants.computeIfAbsent(cachedResource.getHash() + "/" + encoding, key -> ContentEncodings.encode(content, encoding));
+				if (encoding != null) responseHeaders.add(ContentEncodings.CONTENT_ENCODING, encoding);
+
+				sendResponseHeaders(exchange, body.length == 0 ? NO_CONTENT : OK, (long) body.length, sendContent);
+				if (sendContent) {
+					try (OutputStream bodyStream = exchange.getResponseBody()) {
+						bodyStream.write(body);
+					}
+				}
+			} else if (!sendContent) {
+				sendResponseHeaders(exchange, OK, resourceSize, false);
+			} else if (this.contextDirectory != null) {
+				try (FileChannel resourceChannel = FileChannel.open(this.contextDirectory.resolve(resourcePath), StandardOpenOption.READ)) {
+					final long size = resourceChannel.size();
+					try (OutputStream bodyStream = exchange.getResponseBody()) {
+						sendResponseHeaders(exchange, OK, size, true);
+						HttpRanges.transfer(resourceChannel, 0, size, bodyStream);
+					}
+				}
+			} else {
+				try (InputStream resourceStream = this.resourceStream(resourcePath)) {
+					try (OutputStream bodyStream = exchange.getResponseBody()) {
+						sendResponseHeaders(exchange, OK, resourceSize, true);
+						TcpServers.copy(resourceStream, bodyStream);
+					}
+				}
+			}
+		} catch (final NoSuchFileException | AccessDeniedException exception) {
+			exchange.sendResponseHeaders(NOT_FOUND, -1);
+		}
+	}
+
+
+	/**
+	 * Handles an HTTP GET or HEAD request for the given asset manifest by returning it's JSON representation. Clients are
+	 * asked to revalidate the manifest every time, as it changes with every deployment of modified assets.
+	 * @param exchange the HTTP exchange
+	 * @param assetManifest the asset manifest
+	 * @param sendContent {@code true} for GET requests, {@code false} for HEAD requests
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws IOException if there is an I/O related problem
+	 */
+	protected void handleManifestRequest (final HttpExchange exchange, final AssetManifest assetManifest, final boolean sendContent) throws NullPointerException, IOException {
+		final byte[] body = assetManifest.toJson();
+		final String entityTag = "\"" + HashCodes.sha2HashText(256, body) + "\"";
+		exchange.getResponseHeaders().add(ETAG, entityTag);
+		exchange.getResponseHeaders().add(CACHE_CONTROL, REVALIDATE_CACHE_CONTROL);
+		if (isNotModified(exchange.getRequestHeaders(), entityTag, null)) {
+			exchange.sendResponseHeaders(NOT_MODIFIED, -1);
+			return;
+		}
+
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		sendResponseHeaders(exchange, OK, (long) body.length, sendContent);
+		if (sendContent) {
 			try (OutputStream bodyStream = exchange.getResponseBody()) {
-				final Long resourceSize = this.resourceSize(resourcePath);
-				final int responseCode = resourceSize == null || resourceSize != 0 ? OK : NO_CONTENT;
-				exchange.sendResponseHeaders(responseCode, resourceSize == null ? 0 : resourceSize);
+				bodyStream.write(body);
+			}
+		}
+	}
+
 
-				TcpServers.copy(resourceStream, bodyStream, 0x10000);
+	/**
+	 * Handles an HTTP GET request for byte ranges of a file system based resource, by returning the requested ranges as single
+	 * part or multipart content (206), or no content (416) if none of the ranges is satisfiable. Each range is transferred
+	 * using positional channel reads, without reading the preceding bytes.
+	 * @param exchange the HTTP exchange
+	 * @param resourcePath the resource path, relative to this handler's context directory
+	 * @param resourceSize the resource size
+	 * @param ranges the satisfiable byte ranges
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws IOException if there is an I/O related problem
+	 */
+	protected void handleRangeRequest (final HttpExchange exchange, final String resourcePath, final long resourceSize, final List<ByteRange> ranges) throws NullPointerException, IOException {
+		final String resourceType = this.resourceType(resourcePath);
+		exchange.getResponseHeaders().add(HttpRanges.ACCEPT_RANGES, HttpRanges.BYTES);
+		if (ranges.isEmpty()) {
+			exchange.getResponseHeaders().add(HttpRanges.CONTENT_RANGE, HttpRanges.BYTES + " */" + resourceSize);
+			exchange.sendResponseHeaders(HttpRanges.RANGE_NOT_SATISFIABLE, -1);
+			return;
+		}
+
+		try (FileChannel resourceChannel = FileChannel.open(this.contextDirectory.resolve(resourcePath), StandardOpenOption.READ)) {
+			try (OutputStream bodyStream = exchange.getResponseBody()) {
+				if (ranges.size() == 1) {
+					final ByteRange range = ranges.get(0);
+					exchange.getResponseHeaders().add("Content-Type", resourceType);
+					exchange.getResponseHeaders().add(HttpRanges.CONTENT_RANGE, range.toContentRange(resourceSize));
+					exchange.sendResponseHeaders(HttpRanges.PARTIAL_CONTENT, range.getLength());
+
+					HttpRanges.transfer(resourceChannel, range.getOffset(), range.getLength(), bodyStream);
+				} else {
+					final String boundary = HttpRanges.newBoundary();
+					exchange.getResponseHeaders().add("Content-Type", HttpRanges.multipartType(boundary));
+					exchange.sendResponseHeaders(HttpRanges.PARTIAL_CONTENT, HttpRanges.multipartLength(boundary, resourceType, resourceSize, ranges));
+
+					HttpRanges.writeMultipart(bodyStream, boundary, resourceType, resourceSize, ranges, (offset, length, byteSink) -> HttpRanges.transfer(resourceChannel, offset, length, byteSink));
+				}
 			}
 		} catch (final NoSuchFileException | AccessDeniedException exception) {
 			exchange.sendResponseHeaders(NOT_FOUND, -1);
@@ -256,7 +567,7 @@ public class HttpResourceHandler implements HttpHandler {
 
 
 	/**
-	 * Handles an HTTP HEAD request.
+	 * Handles an HTTP HEAD request by returning the same headers as the corresponding GET request, but without content.
 	 * @param exchange the HTTP exchange
 	 * @throws NullPointerException if the given exchange is {@code null}
 	 * @throws IllegalArgumentException if the given exchange contains syntactically invalid data
@@ -264,7 +575,7 @@ public class HttpResourceHandler implements HttpHandler {
 	 * @throws IOException if there is an I/O related problem
 	 */
 	protected void handleHeadRequest (final HttpExchange exchange) throws NullPointerException, IllegalArgumentException, IllegalStateException, IOException {
-		exchange.sendResponseHeaders(METHOD_NOT_ALLOWED, -1);
+		this.handleResourceRequest(exchange, false);
 	}
 
 
@@ -366,6 +677,82 @@ public class HttpResourceHandler implements HttpHandler {
 	}
 
 
+	/**
+	 * Sends the response headers of the given exchange. As the JDK HTTP server doesn't derive the {@code Content-Length}
+	 * header of responses without content, it is added explicitly in this case.
+	 * @param exchange the HTTP exchange
+	 * @param responseCode the response code
+	 * @param contentLength the content length, or {@code null} if unknown
+	 * @param sendContent whether or not content is going to be sent
+	 * @throws NullPointerException if the given exchange is {@code null}
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static private void sendResponseHeaders (final HttpExchange exchange, final int responseCode, final Long contentLength, final boolean sendContent) throws NullPointerException, IOException {
+		if (sendContent) {
+			exchange.sendResponseHeaders(responseCode, contentLength == null ? 0 : (contentLength == 0 ? -1 : contentLength));
+		} else {
+			if (contentLength != null) exchange.getResponseHeaders().set("Content-Length", Long.toString(contentLength));
+			exchange.sendResponseHeaders(responseCode, -1);
+		}
+	}
+
+
+	/**
+	 * Returns whether or not a resource with the given validators is unchanged according to the given request headers.
+	 * {@code If-None-Match} takes precedence over {@code If-Modified-Since}, and is matched using weak comparison. Note that
+	 * HTTP dates have a resolution of one second.
+	 * @param requestHeaders the request headers
+	 * @param entityTag the resource's entity tag, or {@code null} for none
+	 * @param modified the resource's modification time in milliseconds since 1/1/1970, or {@code null} for none
+	 * @return {@code true} if the resource is unchanged, {@code false} otherwise
+	 * @throws NullPointerException if the given request headers are {@code null}
+	 */
+	static private boolean isNotModified (final Headers requestHeaders, final String entityTag, final Long modified) throws NullPointerException {
+		final String ifNoneMatch = requestHeaders.getFirst(IF_NONE_MATCH);
+		if (ifNoneMatch != null) {
+			for (String tag : ifNoneMatch.split(",")) {
+				tag = tag.trim();
+				if (tag.startsWith("W/")) tag = tag.substring(2);
+				if (tag.equals("*") || tag.equals(entityTag)) return true;
+			}
+			return false;
+		}
+
+		final String ifModifiedSince = requestHeaders.getFirst(IF_MODIFIED_SINCE);
+		if (ifModifiedSince == null || modified == null) return false;
+		try {
+			return modified / 1000 <= ZonedDateTime.parse(ifModifiedSince.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+		} catch (final DateTimeParseException exception) {
+			return false;
+		}
+	}
+
+
+	/**
+	 * Returns whether or not the byte ranges of the given request headers may be applied, i.e. if there is no
+	 * {@code If-Range} header, or if it matches the given entity tag (using strong comparison), or the given modification
+	 * time. Otherwise the client's partial content is outdated, and the complete resource must be sent.
+	 * @param requestHeaders the request headers
+	 * @param entityTag the quoted entity tag of the unencoded resource, or {@code null} for none
+	 * @param modified the resource's modification timestamp, or {@code null} for none
+	 * @return {@code true} if byte ranges may be applied, {@code false} otherwise
+	 * @throws NullPointerException if the given request headers are {@code null}
+	 */
+	static private boolean isRangeApplicable (final Headers requestHeaders, final String entityTag, final Long modified) throws NullPointerException {
+		final String ifRange = requestHeaders.getFirst(HttpRanges.IF_RANGE);
+		if (ifRange == null) return true;
+
+		final String condition = ifRange.trim();
+		if (condition.startsWith("\"") || condition.startsWith("W/")) return condition.equals(entityTag);
+		if (modified == null) return false;
+		try {
+			return modified / 1000 == ZonedDateTime.parse(condition, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+		} catch (final DateTimeParseException exception) {
+			return false;
+		}
+	}
+
+
 	/**
 	 * Returns the normalized context path.
 	 * @param contextPath the context path
@@ -377,4 +764,56 @@ public class HttpResourceHandler implements HttpHandler {
 		if (!contextPath.endsWith("/")) contextPath += "/";
 		return contextPath;
 	}
+
+
+
+	/**
+	 * Instances of this class represent resources cached in memory, together with their content hash and the modification
+	 * time they have been read at.
+	 */
+	static public class CachedResource {
+		private final byte[] content;
+		private final Long modified;
+		private final String hash;
+
+
+		/**
+		 * Initializes a new instance.
+		 * @param content the content
+		 * @param modified the modification time in milliseconds since 1/1/1970, or {@code null} for none
+		 * @throws NullPointerException if the given content is {@code null}
+		 */
+		public CachedResource (final byte[] content, final Long modified) throws NullPointerException {
+			this.content = content;
+			this.modified = modified;
+			this.hash = HashCodes.sha2HashText(256, content);
+		}
+
+
+		/**
+		 * Returns the content, which must not be modified.
+		 * @return the content
+		 */
+		public byte[] getContent () {
+			return this.content;
+		}
+
+
+		/**
+		 * Returns the modification time.
+		 * @return the modification time in milliseconds since 1/1/1970, or {@code null} for none
+		 */
+		public Long getModified () {
+			return this.modified;
+		}
+
+
+		/**
+		 * Returns the content hash.
+		 * @return the lower case hexadecimal SHA-256 content hash
+		 */
+		public String getHash () {
+			return this.hash;
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package edu.sb.poker.edu.sb.poker.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import org.glassfish.jersey.jdkhttp.JdkHttpHandlerContainer;
+import org.glassfish.jersey.server.ContainerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpServer;
+
+
+/**
+ * Server backend based on the JDK HTTP server. The Jersey application and the resource handlers are registered as HTTP
+ * contexts of their own. If TLS is configured, every connection is configured using the precomputed TLS parameters, and
+ * every context is filtered by the TLS metrics in order to record handshakes. As the server is created by the backend instead
+ * of Jersey's server factory, the backend notifies the application's container lifecycle listeners of startup and shutdown.
+ */
+public class JdkServerBackend implements ServerBackend {
+	private HttpServer server = null;
+	private JdkHttpHandlerContainer container = null;
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void start (final URI serviceURI, final ResourceConfig configuration, final TlsConfiguration tlsConfiguration, final ExecutorService executor, final HttpResourceHandler... resourceHandlers) throws NullPointerException, IllegalStateException, IOException {
+		if (executor == null) throw new NullPointerException();
+		if (this.server != null) throw new IllegalStateException();
+
+		final HttpServer server = TcpServers.newHttpServer(new InetSocketAddress(serviceURI.getPort()), tlsConfiguration);
+		final JdkHttpHandlerContainer container = ContainerFactory.createContainer(JdkHttpHandlerContainer.class, configuration);
+		server.setExecutor(executor);
+
+		final HttpContext serviceContext = server.createContext(serviceURI.getPath().isEmpty() ? "/" : serviceURI.getPath(), container);
+		if (tlsConfiguration != null) serviceContext.getFilters().add(tlsConfiguration.getMetrics());
+		for (final HttpResourceHandler resourceHandler : resourceHandlers) {
+			final HttpContext resourceContext = server.createContext(resourceHandler.getContextPath(), resourceHandler);
+			if (tlsConfiguration != null) resourceContext.getFilters().add(tlsConfiguration.getMetrics());
+		}
+
+		// the container's own start and stop hooks are package private, and only called by servers created by Jersey
+		container.getApplicationHandler().onStartup(container);
+		server.start();
+		this.server = server;
+		this.container = container;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void close () {
+		if (this.server != null) this.server.stop(0);
+		if (this.container != null) this.container.getApplicationHandler().onShutdown(this.container);
+		this.server = null;
+		this.container = null;
+	}
+}
@@ -0,0 +1,64 @@
+package edu.sb.poker.edu.sb.poker.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import org.glassfish.jersey.server.ResourceConfig;
+
+
+/**
+ * Instances model HTTP server backends, which host a Jersey application together with the contexts of resource handlers.
+ * The backend is selected using the system property {@value #BACKEND_PROPERTY}:<ul>
+ * <li>{@code jdk} (default): The JDK HTTP server, based on blocking I/O and HTTP/1.1 only.</li>
+ * <li>{@code grizzly}: The NIO based Grizzly HTTP server, supporting HTTP/2 both in clear text (h2c) and over TLS (ALPN).</li>
+ * </ul>
+ * Note that the Grizzly backend resides within the optional source folder {@code src-grizzly}, as it depends on libraries
+ * that are not part of the project's library set; it is loaded reflectively if said folder and libraries are added to the
+ * build, which keeps the remaining server classes free of Grizzly dependencies.
+ */
+public interface ServerBackend extends AutoCloseable {
+	static public final String BACKEND_PROPERTY = "edu.sb.poker.server.backend";
+	static public final String GRIZZLY_BACKEND_CLASS = "edu.sb.poker.edu.sb.poker.server.GrizzlyServerBackend";
+
+
+	/**
+	 * Starts this backend.
+	 * @param serviceURI the service URI, whose path is the context path of the Jersey application
+	 * @param configuration the Jersey application configuration
+	 * @param tlsConfiguration the TLS configuration, or {@code null} for none
+	 * @param executor the executor for request processing
+	 * @param resourceHandlers the resource handlers
+	 * @throws NullPointerException if any of the given arguments except the TLS configuration is {@code null}
+	 * @throws IllegalStateException if this backend has already been started
+	 * @throws IOException if there is an I/O related problem
+	 */
+	void start (URI serviceURI, ResourceConfig configuration, TlsConfiguration tlsConfiguration, ExecutorService executor, HttpResourceHandler... resourceHandlers) throws NullPointerException, IllegalStateException, IOException;
+
+
+	/**
+	 * Stops this backend immediately, if it has been started.
+	 */
+	void close ();
+
+
+	/**
+	 * Returns a new backend instance of the type configured using the system property {@value #BACKEND_PROPERTY}.
+	 * @return the backend created
+	 * @throws IllegalArgumentException if the configured backend type is not supported, or not available
+	 */
+	static ServerBackend newInstance () throws IllegalArgumentException {
+		final String type = System.getProperty(BACKEND_PROPERTY, "jdk").trim().toLowerCase();
+		switch (type) {
+			case "jdk":
+				return new JdkServerBackend();
+			case "grizzly":
+				try {
+					return (ServerBackend) Class.forName(GRIZZLY_BACKEND_CLASS).getConstructor().newInstance();
+				} catch (final ReflectiveOperationException | LinkageError exception) {
+					throw new IllegalArgumentException(type, exception);
+				}
+			default:
+				throw new IllegalArgumentException(type);
+		}
+	}
+}
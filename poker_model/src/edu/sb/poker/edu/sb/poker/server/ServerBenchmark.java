@@ -0,0 +1,114 @@
+package edu.sb.poker.edu.sb.poker.server;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Load benchmark for comparing server backends, based on the JDK HTTP client. A fixed number of GET requests is issued for
+ * a given URI, with a given number of requests in flight at any time, after a warm-up phase of the same size. Afterwards, the
+ * throughput, latency percentiles, response codes and negotiated protocol versions are printed. In order to compare backends,
+ * start the application container once for each value of system property {@value ServerBackend#BACKEND_PROPERTY}, and run
+ * this benchmark against each. Note that for TLS with self-signed certificates, the client's trust store must be configured
+ * using the system properties {@code javax.net.ssl.trustStore} and {@code javax.net.ssl.trustStorePassword}.
+ */
+public class ServerBenchmark {
+
+	/**
+	 * Application entry point.
+	 * @param args the runtime arguments (request URI, concurrency, request count, and protocol version "HTTP_1_1" or
+	 *        "HTTP_2", all but the URI optional)
+	 * @throws IllegalArgumentException if any of the given arguments is illegal
+	 * @throws InterruptedException if the current thread is interrupted while waiting for responses
+	 */
+	static public void main (final String[] args) throws IllegalArgumentException, InterruptedException {
+		final URI requestURI = URI.create(args[0]);
+		final int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+		final int requestCount = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+		final HttpClient.Version version = args.length > 3 ? HttpClient.Version.valueOf(args[3]) : HttpClient.Version.HTTP_2;
+
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+		try {
+			final HttpClient client = HttpClient.newBuilder().version(version).connectTimeout(Duration.ofSeconds(10)).executor(executor).build();
+			final HttpRequest request = HttpRequest.newBuilder(requestURI).GET().header("Accept", "*/*").build();
+
+			run(client, request, concurrency, requestCount, new long[requestCount], new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+
+			final long[] latencies = new long[requestCount];
+			final Map<Integer,LongAdder> responseCodes = new ConcurrentHashMap<>();
+			final Map<HttpClient.Version,LongAdder> versions = new ConcurrentHashMap<>();
+			final long duration = run(client, request, concurrency, requestCount, latencies, responseCodes, versions);
+
+			Arrays.sort(latencies);
+			System.out.format("%s requests for %s, %s in flight, %s requested\n", requestCount, requestURI, concurrency, version);
+			System.out.format("throughput: %.1f requests/s\n", requestCount * 1e9 / duration);
+			System.out.format("latency (ms): p50=%.2f, p90=%.2f, p99=%.2f, max=%.2f\n", percentile(latencies, 50) * 1e-6, percentile(latencies, 90) * 1e-6, percentile(latencies, 99) * 1e-6, latencies[latencies.length - 1] * 1e-6);
+			System.out.format("response codes: %s\n", responseCodes);
+			System.out.format("protocol versions: %s\n", versions);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+
+	/**
+	 * Issues the given request the given number of times, with the given number of requests in flight at any time.
+	 * @param client the HTTP client
+	 * @param request the HTTP request
+	 * @param concurrency the maximum number of requests in flight
+	 * @param requestCount the number of requests
+	 * @param latencies the array receiving the request latencies in nanoseconds
+	 * @param responseCodes the map receiving the response code counts, with code 0 for failed requests
+	 * @param versions the map receiving the negotiated protocol version counts
+	 * @return the duration in nanoseconds
+	 * @throws InterruptedException if the current thread is interrupted while waiting for responses
+	 */
+	static private long run (final HttpClient client, final HttpRequest request, final int concurrency, final int requestCount, final long[] latencies, final Map<Integer,LongAdder> responseCodes, final Map<HttpClient.Version,LongAdder> versions) throws InterruptedException {
+		final Semaphore permits = new Semaphore(concurrency);
+		final AtomicInteger index = new AtomicInteger();
+		final CompletableFuture<?>[] futures = new CompletableFuture<?>[requestCount];
+
+		final long start = System.nanoTime();
+		for (int count = 0; count < requestCount; ++count) {
+			permits.acquire();
+			final long requestStart = System.nanoTime();
+			futures[count] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, exception) -> {
+				latencies[index.getAndIncrement()] = System.nanoTime() - requestStart;
+				responseCodes.computeIfAbsent(response == null ? 0 : response.statusCode(), key -> new LongAdder()).increment();
+				if (response != null) versions.computeIfAbsent(response.version(), key -> new LongAdder()).increment();
+				permits.release();
+			});
+		}
+
+		try {
+			CompletableFuture.allOf(futures).join();
+		} catch (final RuntimeException exception) {
+			// failed requests are counted using response code 0
+		}
+		return System.nanoTime() - start;
+	}
+
+
+	/**
+	 * Returns the given percentile of the given sorted values.
+	 * @param sortedValues the sorted values
+	 * @param percentile the percentile within range [0, 100]
+	 * @return the percentile value
+	 */
+	static private long percentile (final long[] sortedValues, final int percentile) {
+		final int index = (int) Math.ceil(percentile / 100.0 * sortedValues.length) - 1;
+		return sortedValues[Math.max(0, Math.min(sortedValues.length - 1, index))];
+	}
+}
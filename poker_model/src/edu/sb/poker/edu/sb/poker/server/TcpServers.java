@@ -15,13 +15,18 @@ import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLEngine;
 import javax.net.ssl.TrustManagerFactory;
 import com.sun.net.httpserver.HttpServer;
-import com.sun.net.httpserver.HttpsConfigurator;
-import com.sun.net.httpserver.HttpsParameters;
 import com.sun.net.httpserver.HttpsServer;
 import edu.sb.poker.util.Copyright;
 
@@ -37,6 +42,13 @@ import edu.sb.poker.util.Copyright;
 public class TcpServers {
 	static private final char[] DEFAULT_KEYSTORE_PASSWORD = "changeit".toCharArray();
 	static private final String CRYPTOGRAPHIC_PROTOCOL = "TLS";
+	static private final String SESSION_TICKET_PROPERTY = "jdk.tls.server.enableSessionTicketExtension";
+	static private final int POOLED_BUFFER_SIZE = 0x10000;
+	static private final BlockingQueue<byte[]> BUFFER_POOL = new ArrayBlockingQueue<>(64);
+	static public final String EXECUTOR_PROPERTY = "edu.sb.poker.server.executor";
+	static public final String POOL_SIZE_PROPERTY = "edu.sb.poker.server.pool.size";
+	static public final String POOL_QUEUE_PROPERTY = "edu.sb.poker.server.pool.queue";
+	static public enum ExecutorModel { VIRTUAL, POOL }
 
 
 	/**
@@ -59,8 +71,42 @@ public class TcpServers {
 	 */
 	static public long copy (final InputStream byteSource, final OutputStream byteSink, final int bufferSize) throws IOException {
 		if (bufferSize <= 0) throw new IllegalArgumentException();
-		final byte[] buffer = new byte[bufferSize];
+		return copy(byteSource, byteSink, new byte[bufferSize]);
+	}
+
 
+	/**
+	 * Reads all remaining bytes from the given byte source, and writes them to the given byte sink, using a 64KB copy buffer
+	 * borrowed from a pool. Pooling avoids allocating (and subsequently collecting) a large buffer for every copy operation,
+	 * while the pool's capacity limits the memory retained once concurrent demand drops. Returns the number of bytes copied,
+	 * and closes neither source nor sink.
+	 * @param byteSource the byte source
+	 * @param byteSink the byte sink
+	 * @return the number of bytes copied
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static public long copy (final InputStream byteSource, final OutputStream byteSink) throws NullPointerException, IOException {
+		final byte[] pooledBuffer = BUFFER_POOL.poll();
+		final byte[] buffer = pooledBuffer == null ? new byte[POOLED_BUFFER_SIZE] : pooledBuffer;
+		try {
+			return copy(byteSource, byteSink, buffer);
+		} finally {
+			BUFFER_POOL.offer(buffer);
+		}
+	}
+
+
+	/**
+	 * Reads all remaining bytes from the given byte source, and writes them to the given byte sink using the given buffer.
+	 * @param byteSource the byte source
+	 * @param byteSink the byte sink
+	 * @param buffer the copy buffer
+	 * @return the number of bytes copied
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static private long copy (final InputStream byteSource, final OutputStream byteSink, final byte[] buffer) throws NullPointerException, IOException {
 		long bytesCopied = 0;
 		try {
 			for (int bytesRead = byteSource.read(buffer); bytesRead != -1; bytesRead = byteSource.read(buffer)) {
@@ -74,6 +120,39 @@ public class TcpServers {
 	}
 
 
+	/**
+	 * Returns a new executor for HTTP request processing, based on the executor model configured using the system property
+	 * {@value #EXECUTOR_PROPERTY}:<ul>
+	 * <li>{@code virtual} (default): Every request is processed within it's own virtual thread, which allows blocking
+	 * operations like JPA queries without occupying a platform thread. If the runtime doesn't support virtual threads (Java
+	 * 21+), this falls back to the platform pool.</li>
+	 * <li>{@code pool}: Requests are processed by a bounded pool of platform threads, whose size defaults to eight threads per
+	 * processor (system property {@value #POOL_SIZE_PROPERTY}). Requests exceeding the bounded waiting queue (system property
+	 * {@value #POOL_QUEUE_PROPERTY}) are rejected, which causes their connections to be closed instead of piling up.</li>
+	 * </ul>
+	 * Note that without any executor, the JDK HTTP server processes all requests within it's single dispatcher thread.
+	 * @return the executor created
+	 * @throws IllegalArgumentException if the configured executor model or pool settings are invalid
+	 */
+	static public ExecutorService newExecutor () throws IllegalArgumentException {
+		final ExecutorModel model = ExecutorModel.valueOf(System.getProperty(EXECUTOR_PROPERTY, ExecutorModel.VIRTUAL.name()).trim().toUpperCase());
+		if (model == ExecutorModel.VIRTUAL) {
+			try {
+				// reflective access keeps this code compatible with runtimes predating virtual threads
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			} catch (final ReflectiveOperationException exception) {
+				Logger.getGlobal().log(Level.WARNING, "Virtual threads are not supported by this runtime, falling back to a bounded platform thread pool.");
+			}
+		}
+
+		final int poolSize = Integer.parseInt(System.getProperty(POOL_SIZE_PROPERTY, Integer.toString(8 * Runtime.getRuntime().availableProcessors())));
+		final int queueCapacity = Integer.parseInt(System.getProperty(POOL_QUEUE_PROPERTY, Integer.toString(16 * poolSize)));
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+
 	/**
 	 * Returns the local address.
 	 * @return the local address, or the loopback address if there is no local address
@@ -89,6 +168,8 @@ public class TcpServers {
 
 	/**
 	 * Returns a new TLS context based on a JKS key store and the most recent supported transport layer security (TLS) version.
+	 * Unless configured otherwise, stateless session resumption using TLS 1.3 session tickets is enabled, which allows clients
+	 * to resume sessions even if the server session cache has evicted them.
 	 * @param keyStorePath the key store file path (jks for Java 8-, pkcs12 for Java 9+), or {@code null} for none
 	 * @param keyRecoveryPassword the key recovery password, or {@code null} for "changeit"
 	 * @param keyManagementPassword the key management password, or {@code null} for "changeit"
@@ -118,6 +199,7 @@ public class TcpServers {
 			final TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
 			tmf.init(keyStore);
 
+			if (System.getProperty(SESSION_TICKET_PROPERTY) == null) System.setProperty(SESSION_TICKET_PROPERTY, "true");
 			final SSLContext context = SSLContext.getInstance(CRYPTOGRAPHIC_PROTOCOL);
 			context.init(kmf.getKeyManagers(), tmf.getTrustManagers(), new SecureRandom());
 			return context;
@@ -142,24 +224,26 @@ public class TcpServers {
 	 * @throws IOException if there is an I/O related problem
 	 */
 	static public HttpServer newHttpServer (final InetSocketAddress serviceAddress, final Path keyStorePath, final String keyRecoveryPassword, final String keyManagementPassword) throws NullPointerException, NoSuchFileException, AccessDeniedException, IOException {
-		if (serviceAddress == null) throw new NullPointerException();
-		if (keyStorePath == null) return HttpServer.create(serviceAddress, 0);
-
 		final SSLContext context = newTLSContext(keyStorePath, keyRecoveryPassword, keyManagementPassword);
-		final HttpsConfigurator configurator = new HttpsConfigurator(context) {
-			public void configure (final HttpsParameters parameters) {
-				final SSLEngine engine = this.getSSLContext().createSSLEngine(serviceAddress.getHostName(), serviceAddress.getPort());
-				parameters.setWantClientAuth(false);
-				parameters.setNeedClientAuth(false);
-				parameters.setProtocols(engine.getEnabledProtocols());
-				parameters.setCipherSuites(engine.getEnabledCipherSuites());
-
-				super.configure(parameters);
-			}
-		};
+		return newHttpServer(serviceAddress, context == null ? null : new TlsConfiguration(context));
+	}
+
+
+	/**
+	 * Returns a new HTTP server instance if the given TLS configuration is {@code null}, otherwise a new HTTPS server instance
+	 * applying said configuration to every connection.
+	 * @param serviceAddress the service address
+	 * @param tlsConfiguration the TLS configuration, or {@code null} for none
+	 * @return the HTTP(S) server created
+	 * @throws NullPointerException if the given service address is {@code null}
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static public HttpServer newHttpServer (final InetSocketAddress serviceAddress, final TlsConfiguration tlsConfiguration) throws NullPointerException, IOException {
+		if (serviceAddress == null) throw new NullPointerException();
+		if (tlsConfiguration == null) return HttpServer.create(serviceAddress, 0);
 
 		final HttpsServer server = HttpsServer.create(serviceAddress, 0);
-		server.setHttpsConfigurator(configurator);
+		server.setHttpsConfigurator(tlsConfiguration.newConfigurator());
 		return server;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+package edu.sb.poker.edu.sb.poker.server;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSessionContext;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsParameters;
+
+
+/**
+ * Instances of this class configure TLS for server connections. The server session cache is sized and timed using the system
+ * properties {@value #SESSION_CACHE_SIZE_PROPERTY} and {@value #SESSION_TIMEOUT_PROPERTY}, which allows clients that reconnect
+ * often (like mobile clients) to resume their sessions using abbreviated handshakes, instead of repeating full handshakes.
+ * Protocols and cipher suites can be configured using the system properties {@value #PROTOCOLS_PROPERTY} and
+ * {@value #CIPHER_SUITES_PROPERTY}; by default, TLS 1.3 and 1.2 are enabled, and the enabled cipher suites are ordered to prefer
+ * AEAD suites (AES-GCM and ChaCha20-Poly1305), with the server's order taking precedence over the client's. The resulting
+ * SSL parameters are computed once, instead of creating an SSL engine for every connection in order to query them.
+ */
+public class TlsConfiguration {
+	static public final String SESSION_CACHE_SIZE_PROPERTY = "edu.sb.poker.tls.session.cache.size";
+	static public final String SESSION_TIMEOUT_PROPERTY = "edu.sb.poker.tls.session.timeout";
+	static public final String PROTOCOLS_PROPERTY = "edu.sb.poker.tls.protocols";
+	static public final String CIPHER_SUITES_PROPERTY = "edu.sb.poker.tls.cipher.suites";
+	static private final String DEFAULT_SESSION_CACHE_SIZE = "20480", DEFAULT_SESSION_TIMEOUT = "28800", DEFAULT_PROTOCOLS = "TLSv1.3,TLSv1.2";
+	static private final List<String> AEAD_MARKERS = List.of("_GCM_", "_CHACHA20_POLY1305_");
+
+	private final SSLContext context;
+	private final SSLParameters parameters;
+	private final TlsMetrics metrics;
+
+
+	/**
+	 * Initializes a new instance, and configures the given context's server session cache.
+	 * @param context the TLS context
+	 * @throws NullPointerException if the given argument is {@code null}
+	 * @throws IllegalArgumentException if any of the configured system properties is invalid, or if none of the configured
+	 *         protocols or cipher suites is supported
+	 */
+	public TlsConfiguration (final SSLContext context) throws NullPointerException, IllegalArgumentException {
+		final SSLSessionContext sessionContext = context.getServerSessionContext();
+		sessionContext.setSessionCacheSize(Integer.parseInt(System.getProperty(SESSION_CACHE_SIZE_PROPERTY, DEFAULT_SESSION_CACHE_SIZE)));
+		sessionContext.setSessionTimeout(Integer.parseInt(System.getProperty(SESSION_TIMEOUT_PROPERTY, DEFAULT_SESSION_TIMEOUT)));
+
+		final SSLParameters supportedParameters = context.getSupportedSSLParameters();
+		final SSLParameters defaultParameters = context.getDefaultSSLParameters();
+		final String[] protocols = select(System.getProperty(PROTOCOLS_PROPERTY, DEFAULT_PROTOCOLS), supportedParameters.getProtocols());
+		final String[] cipherSuites = System.getProperty(CIPHER_SUITES_PROPERTY) == null
+			? Arrays.stream(defaultParameters.getCipherSuites()).sorted(Comparator.comparing(TlsConfiguration::isAEAD).reversed()).toArray(String[]::new)
+			: select(System.getProperty(CIPHER_SUITES_PROPERTY), supportedParameters.getCipherSuites());
+
+		final SSLParameters parameters = context.getDefaultSSLParameters();
+		parameters.setProtocols(protocols);
+		parameters.setCipherSuites(cipherSuites);
+		parameters.setUseCipherSuitesOrder(true);
+		parameters.setWantClientAuth(false);
+		parameters.setNeedClientAuth(false);
+
+		this.context = context;
+		this.parameters = parameters;
+		this.metrics = new TlsMetrics(sessionContext);
+	}
+
+
+	/**
+	 * Returns the TLS context.
+	 * @return the TLS context
+	 */
+	public SSLContext getContext () {
+		return this.context;
+	}
+
+
+	/**
+	 * Returns the SSL parameters, which must not be modified.
+	 * @return the SSL parameters
+	 */
+	public SSLParameters getParameters () {
+		return this.parameters;
+	}
+
+
+	/**
+	 * Returns the metrics, which collect handshake statistics when added as filter to HTTP contexts.
+	 * @return the TLS metrics
+	 */
+	public TlsMetrics getMetrics () {
+		return this.metrics;
+	}
+
+
+	/**
+	 * Returns a new HTTPS configurator applying the precomputed SSL parameters to every connection, and recording every
+	 * connection within the metrics.
+	 * @return the HTTPS configurator created
+	 */
+	public HttpsConfigurator newConfigurator () {
+		return new HttpsConfigurator(this.context) {
+			public void configure (final HttpsParameters parameters) {
+				TlsConfiguration.this.metrics.recordConnection();
+				parameters.setSSLParameters(TlsConfiguration.this.parameters);
+			}
+		};
+	}
+
+
+	/**
+	 * Returns whether or not the given cipher suite provides authenticated encryption with associated data (AEAD).
+	 * @param cipherSuite the cipher suite
+	 * @return {@code true} if the cipher suite is an AEAD suite, {@code false} otherwise
+	 */
+	static private boolean isAEAD (final String cipherSuite) {
+		return AEAD_MARKERS.stream().anyMatch(marker -> (cipherSuite + "_").contains(marker));
+	}
+
+
+	/**
+	 * Returns the configured elements that are supported, in configuration order.
+	 * @param configuration the comma separated configured elements
+	 * @param supported the supported elements
+	 * @return the selected elements
+	 * @throws IllegalArgumentException if none of the configured elements is supported
+	 */
+	static private String[] select (final String configuration, final String[] supported) throws IllegalArgumentException {
+		final Set<String> supportedElements = Set.of(supported);
+		final String[] elements = Arrays.stream(configuration.split(",")).map(String::trim).filter(supportedElements::contains).toArray(String[]::new);
+		if (elements.length == 0) throw new IllegalArgumentException(configuration);
+		return elements;
+	}
+}
@@ -0,0 +1,171 @@
+package edu.sb.poker.edu.sb.poker.server;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpsExchange;
+
+
+/**
+ * HTTP filter collecting TLS handshake statistics, which are exposed as MBean {@value #OBJECT_NAME}. As the JDK HTTP server
+ * doesn't expose handshakes directly, they are derived from the exchanges: Every session (identified by it's session ID)
+ * keeps track of the connections (identified by their remote address) it has been used with. The first exchange of a
+ * connection marks a handshake, which is considered full if it's session hasn't been used before, and resumed otherwise.
+ * This works for both session identifier resumption (TLS 1.2), and for session ticket resumption (TLS 1.3), as resumed
+ * sessions retain their original session ID. As sessions are tracked as long as they are in use, long-lived connections
+ * are not counted twice; however, sessions unused for longer than the tracking capacity allows are forgotten, and a later
+ * resumption of such a session is counted as full handshake.
+ */
+public class TlsMetrics extends Filter implements TlsMetricsMBean {
+	static public final String OBJECT_NAME = "edu.sb.poker:type=TlsMetrics";
+	static private final int MAX_SESSION_COUNT = 0x4000;
+
+	private final SSLSessionContext sessionContext;
+	private final LongAdder connectionCount = new LongAdder(), fullHandshakeCount = new LongAdder(), resumedHandshakeCount = new LongAdder();
+	private final Map<String,Set<InetSocketAddress>> sessionConnections = new LinkedHashMap<>(16, 0.75f, true) {
+		static private final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry (final Map.Entry<String,Set<InetSocketAddress>> eldest) {
+			return this.size() > MAX_SESSION_COUNT;
+		}
+	};
+
+
+	/**
+	 * Initializes a new instance.
+	 * @param sessionContext the server session context
+	 * @throws NullPointerException if the given argument is {@code null}
+	 */
+	public TlsMetrics (final SSLSessionContext sessionContext) throws NullPointerException {
+		if (sessionContext == null) throw new NullPointerException();
+		this.sessionContext = sessionContext;
+	}
+
+
+	/**
+	 * Registers this instance with the platform MBean server.
+	 * @throws IllegalStateException if registration fails, for example because another instance is already registered
+	 */
+	public void register () throws IllegalStateException {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+		} catch (final JMException exception) {
+			throw new IllegalStateException(exception);
+		}
+	}
+
+
+	/**
+	 * Records the configuration of a new TLS connection.
+	 */
+	public void recordConnection () {
+		this.connectionCount.increment();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getConnectionCount () {
+		return this.connectionCount.sum();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getFullHandshakeCount () {
+		return this.fullHandshakeCount.sum();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getResumedHandshakeCount () {
+		return this.resumedHandshakeCount.sum();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public double getResumptionRatio () {
+		final long resumedHandshakeCount = this.getResumedHandshakeCount();
+		final long handshakeCount = resumedHandshakeCount + this.getFullHandshakeCount();
+		return handshakeCount == 0 ? 0 : (double) resumedHandshakeCount / handshakeCount;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getCachedSessionCount () {
+		return Collections.list(this.sessionContext.getIds()).size();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getSessionCacheSize () {
+		return this.sessionContext.getSessionCacheSize();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getSessionTimeout () {
+		return this.sessionContext.getSessionTimeout();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String description () {
+		return "TLS handshake metrics";
+	}
+
+
+	/**
+	 * Records a handshake if the given exchange is the first one of it's connection, and passes it on.
+	 * @param exchange the HTTP exchange
+	 * @param chain the filter chain
+	 * @throws IOException if there is an I/O related problem
+	 */
+	@Override
+	public void doFilter (final HttpExchange exchange, final Chain chain) throws IOException {
+		final SSLSession session = exchange instanceof HttpsExchange ? ((HttpsExchange) exchange).getSSLSession() : null;
+		if (session != null && session.getId().length > 0) {
+			final String sessionIdentity = HexFormat.of().formatHex(session.getId());
+			final int connectionCount;
+			synchronized (this.sessionConnections) {
+				final Set<InetSocketAddress> connections = this.sessionConnections.computeIfAbsent(sessionIdentity, key -> new HashSet<>());
+				connectionCount = connections.add(exchange.getRemoteAddress()) ? connections.size() : 0;
+			}
+
+			if (connectionCount == 1)
+				this.fullHandshakeCount.increment();
+			else if (connectionCount > 1)
+				this.resumedHandshakeCount.increment();
+		}
+
+		chain.doFilter(exchange);
+	}
+}
@@ -0,0 +1,59 @@
+package edu.sb.poker.edu.sb.poker.server;
+
+
+/**
+ * Management interface of {@link TlsMetrics}, exposing TLS connection and handshake statistics.
+ */
+public interface TlsMetricsMBean {
+
+	/**
+	 * Returns the number of TLS connections configured.
+	 * @return the connection count
+	 */
+	long getConnectionCount ();
+
+
+	/**
+	 * Returns the number of full handshakes observed, i.e. handshakes establishing a new session. Note that handshakes are
+	 * derived from the first exchange of every connection, and are therefore an estimate; see {@link TlsMetrics}.
+	 * @return the full handshake count
+	 */
+	long getFullHandshakeCount ();
+
+
+	/**
+	 * Returns the number of abbreviated handshakes observed, i.e. handshakes resuming an existing session using a session
+	 * identifier or a session ticket. A handshake is considered resumed if it's session ID has already been used with another
+	 * connection, which is an estimate as well; see {@link TlsMetrics}.
+	 * @return the resumed handshake count
+	 */
+	long getResumedHandshakeCount ();
+
+
+	/**
+	 * Returns the ratio of resumed handshakes to all handshakes observed.
+	 * @return the resumption ratio within range [0, 1]
+	 */
+	double getResumptionRatio ();
+
+
+	/**
+	 * Returns the number of sessions currently cached by the server.
+	 * @return the cached session count
+	 */
+	int getCachedSessionCount ();
+
+
+	/**
+	 * Returns the maximum number of sessions cached by the server.
+	 * @return the session cache size, or zero for unlimited
+	 */
+	int getSessionCacheSize ();
+
+
+	/**
+	 * Returns the session timeout.
+	 * @return the session timeout in seconds, or zero for unlimited
+	 */
+	int getSessionTimeout ();
+}
@@ -13,6 +13,7 @@ import javax.persistence.Id;
 import javax.persistence.Index;
 import javax.persistence.Inheritance;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.Positive;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -46,7 +47,7 @@ public abstract class BaseEntity implements Comparable<BaseEntity> {
 	private long identity;
 
 	@Positive
-	// @Version
+	@Version
 	@Column(nullable = false, updatable = true)
 	private int version;
 
@@ -86,7 +87,8 @@ public abstract class BaseEntity implements Comparable<BaseEntity> {
 
 
 	/**
-	 * Returns the version. This property is currently inactive.
+	 * Returns the version, which is used for optimistic locking. It is incremented whenever a modified entity is
+	 * written to the database, and concurrent modifications of the same entity version cause the latter commit to fail.
 	 * @return the version
 	 */
 	@JsonbProperty @XmlAttribute
@@ -0,0 +1,349 @@
+package edu.sb.poker.persistence;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+
+/**
+ * Facade for the compact binary representation of cards, hands, games and tables, which is designed for clients on poor
+ * links. Every message starts with a type tag, optionally marked as collection (followed by the element count), followed by
+ * the entity bodies. Integer values are encoded as unsigned variable length quantities (7 bits per byte, least significant group
+ * first), and reference lists as ascending deltas of the sorted identities. A card is encoded as a single byte
+ * {@code suit * 13 + rank} (using the enum ordinals), omitting identity, version and creation timestamp, as the 52 cards are
+ * immutable and uniquely identified by suit and rank. Other entities retain identity and version, but omit their creation
+ * timestamp, and a hand's position is encoded incremented by one, with zero representing none. Decoding sets the same
+ * properties as unmarshaling from JSON does, plus the references, which are restored as related entities carrying nothing
+ * but their identity (and the player's position); such entities must not be merged. Note that this facade resides within
+ * the persistence package in order to access the entities' protected reference properties.
+ */
+public class BinaryCodec {
+	static private final int CARD = 1, HAND = 2, GAME = 3, TABLE = 4;
+	static private final int COLLECTION = 0x80;
+	static private final int CARD_COUNT = Card.Suit.values().length * Card.Rank.values().length;
+	static private final int MAX_ELEMENT_COUNT = 0x10000, MAX_TEXT_LENGTH = 0x1000;
+	static private final Map<Class<?>,Integer> TAGS = Map.of(Card.class, CARD, Hand.class, HAND, Game.class, GAME, PokerTable.class, TABLE);
+
+
+	/**
+	 * Prevents external instantiation.
+	 */
+	private BinaryCodec () {}
+
+
+	/**
+	 * Returns whether or not entities of the given type are supported.
+	 * @param type the type, or {@code null} for none
+	 * @return {@code true} if the type is supported, {@code false} otherwise
+	 */
+	static public boolean isSupported (final Class<?> type) {
+		return type != null && tag(type) != 0;
+	}
+
+
+	/**
+	 * Writes the given entity to the given byte sink.
+	 * @param byteSink the byte sink
+	 * @param entity the entity
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws IllegalArgumentException if the given entity's type is not supported
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static public void write (final DataOutput byteSink, final BaseEntity entity) throws NullPointerException, IllegalArgumentException, IOException {
+		final int tag = tag(entity.getClass());
+		if (tag == 0) throw new IllegalArgumentException(entity.getClass().getName());
+
+		byteSink.writeByte(tag);
+		writeBody(byteSink, tag, entity);
+	}
+
+
+	/**
+	 * Writes the given entities to the given byte sink.
+	 * @param byteSink the byte sink
+	 * @param elementType the element type
+	 * @param entities the entities
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws IllegalArgumentException if the given element type is not supported, or if any of the given entities is not
+	 *         of said type
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static public void writeAll (final DataOutput byteSink, final Class<?> elementType, final Collection<?> entities) throws NullPointerException, IllegalArgumentException, IOException {
+		final int tag = tag(elementType);
+		if (tag == 0) throw new IllegalArgumentException(elementType.getName());
+
+		byteSink.writeByte(tag | COLLECTION);
+		writeNumber(byteSink, entities.size());
+		for (final Object entity : entities) {
+			if (!elementType.isInstance(entity)) throw new IllegalArgumentException(String.valueOf(entity));
+			writeBody(byteSink, tag, (BaseEntity) entity);
+		}
+	}
+
+
+	/**
+	 * Reads an entity, or a list of entities, from the given byte source.
+	 * @param byteSource the byte source
+	 * @return the entity or entity list read
+	 * @throws NullPointerException if the given argument is {@code null}
+	 * @throws IllegalArgumentException if the byte source's content is malformed
+	 * @throws IOException if there is an I/O related problem, like a premature end of content
+	 */
+	static public Object read (final DataInput byteSource) throws NullPointerException, IllegalArgumentException, IOException {
+		final int tag = byteSource.readUnsignedByte();
+		if ((tag & COLLECTION) == 0) return readBody(byteSource, tag);
+
+		final long elementCount = readNumber(byteSource);
+		if (elementCount < 0 | elementCount > MAX_ELEMENT_COUNT) throw new IllegalArgumentException("element count " + elementCount);
+
+		final List<BaseEntity> entities = new ArrayList<>((int) elementCount);
+		for (int count = 0; count < elementCount; ++count)
+			entities.add(readBody(byteSource, tag & ~COLLECTION));
+		return entities;
+	}
+
+
+	/**
+	 * Returns the tag of the given type.
+	 * @param type the type
+	 * @return the tag, or zero if the type is not supported
+	 */
+	static private int tag (final Class<?> type) {
+		for (Class<?> superclass = type; superclass != null; superclass = superclass.getSuperclass()) {
+			final Integer tag = TAGS.get(superclass);
+			if (tag != null) return tag;
+		}
+		return 0;
+	}
+
+
+	/**
+	 * Writes the body of the given entity.
+	 * @param byteSink the byte sink
+	 * @param tag the entity's tag
+	 * @param entity the entity
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static private void writeBody (final DataOutput byteSink, final int tag, final BaseEntity entity) throws IOException {
+		switch (tag) {
+			case CARD: {
+				final Card card = (Card) entity;
+				byteSink.writeByte(card.getSuit().ordinal() * Card.Rank.values().length + card.getRank().ordinal());
+				break;
+			}
+
+			case HAND: {
+				final Hand hand = (Hand) entity;
+				writeNumber(byteSink, hand.getIdentity());
+				writeNumber(byteSink, hand.getVersion());
+				writeNumber(byteSink, hand.getGameReference());
+				writeNumber(byteSink, hand.getPlayerReference() == null ? 0 : hand.getPlayerReference());
+				writeNumber(byteSink, hand.getBet());
+				byteSink.writeByte((hand.getActive() ? 1 : 0) | (hand.getFolded() ? 2 : 0));
+				writeNumber(byteSink, hand.getPosition() + 1);
+				break;
+			}
+
+			case GAME: {
+				final Game game = (Game) entity;
+				writeNumber(byteSink, game.getIdentity());
+				writeNumber(byteSink, game.getVersion());
+				writeNumber(byteSink, game.getTableReference());
+				byteSink.writeByte(game.getState().ordinal());
+				writeNumber(byteSink, game.getActivityTimestamp());
+				writeReferences(byteSink, game.getHandReference());
+				break;
+			}
+
+			case TABLE: {
+				final PokerTable table = (PokerTable) entity;
+				final byte[] alias = table.getAlias().getBytes(UTF_8);
+				writeNumber(byteSink, table.getIdentity());
+				writeNumber(byteSink, table.getVersion());
+				writeNumber(byteSink, alias.length);
+				byteSink.write(alias);
+				writeNumber(byteSink, table.getAvatarReference());
+				writeReferences(byteSink, table.getGameReference());
+				writeReferences(byteSink, table.getPlayerReference());
+				break;
+			}
+
+			default:
+				throw new AssertionError();
+		}
+	}
+
+
+	/**
+	 * Reads the body of an entity.
+	 * @param byteSource the byte source
+	 * @param tag the entity's tag
+	 * @return the entity read
+	 * @throws IllegalArgumentException if the byte source's content is malformed
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static private BaseEntity readBody (final DataInput byteSource, final int tag) throws IllegalArgumentException, IOException {
+		switch (tag) {
+			case CARD: {
+				final int code = byteSource.readUnsignedByte();
+				if (code >= CARD_COUNT) throw new IllegalArgumentException("card " + code);
+				return new Card(Card.Suit.values()[code / Card.Rank.values().length], Card.Rank.values()[code % Card.Rank.values().length]);
+			}
+
+			case HAND: {
+				final Hand hand = new Hand();
+				hand.setIdentity(readNumber(byteSource));
+				hand.setVersion((int) readNumber(byteSource));
+				hand.setGame(stub(new Game(), readNumber(byteSource)));
+				final long playerReference = readNumber(byteSource);
+				hand.setBet(readNumber(byteSource));
+				final int flags = byteSource.readUnsignedByte();
+				hand.setActive((flags & 1) != 0);
+				hand.setFolded((flags & 2) != 0);
+				final long position = readNumber(byteSource) - 1;
+				if (position < -1 | position > Byte.MAX_VALUE | (position != -1 & playerReference == 0)) throw new IllegalArgumentException("position " + position);
+				if (playerReference != 0) {
+					final Person player = stub(new Person(), playerReference);
+					player.setPosition(position == -1 ? null : (byte) position);
+					hand.setPlayer(player);
+				}
+				return hand;
+			}
+
+			case GAME: {
+				final Game game = new Game();
+				game.setIdentity(readNumber(byteSource));
+				game.setVersion((int) readNumber(byteSource));
+				game.setTable(stub(new PokerTable(), readNumber(byteSource)));
+				final int state = byteSource.readUnsignedByte();
+				if (state >= Game.State.values().length) throw new IllegalArgumentException("state " + state);
+				game.setState(Game.State.values()[state]);
+				game.setActivityTimestamp(readNumber(byteSource));
+				game.setHands(stubs(Hand::new, readReferences(byteSource)));
+				return game;
+			}
+
+			case TABLE: {
+				final PokerTable table = new PokerTable();
+				table.setIdentity(readNumber(byteSource));
+				table.setVersion((int) readNumber(byteSource));
+				final long aliasLength = readNumber(byteSource);
+				if (aliasLength < 0 | aliasLength > MAX_TEXT_LENGTH) throw new IllegalArgumentException("alias length " + aliasLength);
+				final byte[] alias = new byte[(int) aliasLength];
+				byteSource.readFully(alias);
+				table.setAlias(new String(alias, UTF_8));
+				table.setAvatar(stub(new Document(), readNumber(byteSource)));
+				table.setGames(stubs(Game::new, readReferences(byteSource)));
+				table.setPlayers(stubs(Person::new, readReferences(byteSource)));
+				return table;
+			}
+
+			default:
+				throw new IllegalArgumentException("tag " + tag);
+		}
+	}
+
+
+	/**
+	 * Returns the given entity after setting it's identity, for use as reference.
+	 * @param <T> the entity type
+	 * @param entity the entity
+	 * @param identity the identity
+	 * @return the given entity
+	 */
+	static private <T extends BaseEntity> T stub (final T entity, final long identity) {
+		entity.setIdentity(identity);
+		return entity;
+	}
+
+
+	/**
+	 * Returns new entities for use as references, one for each of the given identities.
+	 * @param <T> the entity type
+	 * @param entityFactory the entity factory
+	 * @param identities the identities
+	 * @return the entities
+	 */
+	static private <T extends BaseEntity> Set<T> stubs (final Supplier<T> entityFactory, final long[] identities) {
+		final Set<T> entities = new HashSet<>();
+		for (final long identity : identities)
+			entities.add(stub(entityFactory.get(), identity));
+		return entities;
+	}
+
+
+	/**
+	 * Writes the given number as unsigned variable length quantity.
+	 * @param byteSink the byte sink
+	 * @param number the number
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static private void writeNumber (final DataOutput byteSink, long number) throws IOException {
+		while ((number & ~0x7FL) != 0) {
+			byteSink.writeByte((int) (number & 0x7F) | 0x80);
+			number >>>= 7;
+		}
+		byteSink.writeByte((int) number);
+	}
+
+
+	/**
+	 * Reads a number encoded as unsigned variable length quantity.
+	 * @param byteSource the byte source
+	 * @return the number read
+	 * @throws IllegalArgumentException if the number is longer than 64 bits
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static private long readNumber (final DataInput byteSource) throws IllegalArgumentException, IOException {
+		long number = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7) {
+			final int group = byteSource.readUnsignedByte();
+			number |= (long) (group & 0x7F) << shift;
+			if ((group & 0x80) == 0) return number;
+		}
+		throw new IllegalArgumentException("number too long");
+	}
+
+
+	/**
+	 * Writes the given sorted references as element count followed by ascending deltas.
+	 * @param byteSink the byte sink
+	 * @param references the references, sorted in ascending order
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static private void writeReferences (final DataOutput byteSink, final long[] references) throws IOException {
+		writeNumber(byteSink, references.length);
+		long previous = 0;
+		for (final long reference : references) {
+			writeNumber(byteSink, reference - previous);
+			previous = reference;
+		}
+	}
+
+
+	/**
+	 * Reads references written as element count followed by ascending deltas.
+	 * @param byteSource the byte source
+	 * @return the references read
+	 * @throws IllegalArgumentException if the element count is too large
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static private long[] readReferences (final DataInput byteSource) throws IllegalArgumentException, IOException {
+		final long elementCount = readNumber(byteSource);
+		if (elementCount < 0 | elementCount > MAX_ELEMENT_COUNT) throw new IllegalArgumentException("element count " + elementCount);
+
+		final long[] references = new long[(int) elementCount];
+		long previous = 0;
+		for (int index = 0; index < references.length; ++index)
+			references[index] = previous += readNumber(byteSource);
+		return references;
+	}
+}
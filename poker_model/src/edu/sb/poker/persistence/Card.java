@@ -14,6 +14,10 @@ import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
 
+import org.eclipse.persistence.annotations.Cache;
+import org.eclipse.persistence.annotations.CacheType;
+import org.eclipse.persistence.annotations.ReadOnly;
+
 import edu.sb.poker.util.JsonProtectedPropertyStrategy;
 
 
@@ -57,6 +61,8 @@ import edu.sb.poker.util.JsonProtectedPropertyStrategy;
 @XmlType @XmlRootElement
 @Table(schema = "poker", name = "Card", uniqueConstraints = @UniqueConstraint(columnNames = {"suitAlias", "rankAlias"}))
 @PrimaryKeyJoinColumn(name = "cardIdentity")
+@ReadOnly
+@Cache(type = CacheType.FULL)
 public class Card extends BaseEntity{
 	static public enum Suit{
 		DIAMONDS, HEARTS, SPADES, CLUBS;
@@ -4,19 +4,27 @@ import java.util.Set;
 import javax.json.bind.annotation.JsonbProperty;
 import javax.json.bind.annotation.JsonbTransient;
 import javax.json.bind.annotation.JsonbVisibility;
+import javax.persistence.Basic;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.OneToMany;
 import javax.persistence.PrimaryKeyJoinColumn;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Positive;
 import javax.validation.constraints.Size;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlType;
+import org.eclipse.persistence.annotations.Cache;
 import org.eclipse.persistence.annotations.CacheIndex;
+import org.eclipse.persistence.annotations.CacheType;
+import edu.sb.poker.util.ContentEncodings;
 import edu.sb.poker.util.Copyright;
 import edu.sb.poker.util.HashCodes;
 import edu.sb.poker.util.JsonProtectedPropertyStrategy;
@@ -36,11 +44,20 @@ import edu.sb.poker.util.JsonProtectedPropertyStrategy;
  * in a server environment: Content under one MB in size should usually be ok; 64KB is the default size usually reserved for
  * streaming I/O buffers and IP packets, which indicates the super safe lower limit. Larger content should also be bearable if
  * it isn't constantly accessed, maybe up to a few MB in size; a 16MB MEDIUMBLOB cell still fits around 256 times into 4GB of
- * memory. However, once content size exceeds these limits, direct mapping into byte arrays quickly becomes questionable.</li>
+ * memory. However, once content size exceeds these limits, direct mapping into byte arrays quickly becomes questionable.
+ * Therefore, the content is fetched lazily (which requires weaving), allowing the document metadata to be loaded cheaply
+ * whenever documents are merely referenced, like avatars are.</li>
  * <li>If byte arrays cannot be used for the complete content because the content size is too large, an interesting alternative
  * is to break up the content into smaller chunks, for example stored in 32KB VARBINARY fields of 1:* related "DocumentChunk"
  * entities. Using JP-QL queries for the chunk identities, the chunks can be accessed serially whenever the content is required,
- * while still maintaining the effectiveness of the 2nd level cache if desired.</li>
+ * while still maintaining the effectiveness of the 2nd level cache if desired. This is what {@link Storage#CHUNKED} does for
+ * content exceeding {@link #MAX_INLINE_SIZE}.</li>
+ * <li>Alternatively, content can be stored in a content-addressed file system store (see {@link Storage#FILE}), with the
+ * database keeping only the metadata. This relieves database buffer pools and backups from content, at the expense of
+ * consistency guarantees.</li>
+ * <li>Compressible inline content can be stored in an HTTP content encoding (see {@link #getEncoding()}), which saves database
+ * and cache space, and allows the content to be served as-is to clients accepting said encoding. Note that the hash and size
+ * always refer to the decoded content.</li>
  * <li>In opposition to this, JPA mapping to {@code java.sql.Blob} (which promises streaming I/O) is not supported by most JPA
  * implementations. The reasons for this are multi-faceted: Few databases really support server-side streaming I/O of BLOBs;
  * MySQL for example does not and probably never will. Even fewer JDBC connector implementations really support streaming I/O of
@@ -59,10 +76,13 @@ import edu.sb.poker.util.JsonProtectedPropertyStrategy;
 @Entity
 @Table(schema = "poker", name = "Document")
 @PrimaryKeyJoinColumn(name = "documentIdentity")
+@Cache(type = CacheType.HARD_WEAK, size = 500)
 @JsonbVisibility(JsonProtectedPropertyStrategy.class)
 @XmlType @XmlRootElement
 @Copyright(year=2005, holders="Sascha Baumeister")
 public class Document extends BaseEntity {
+	static public enum Storage { INLINE, CHUNKED, FILE }
+	static public final int MAX_INLINE_SIZE = 0x10000;
 
 	@NotNull @Size(min = 64, max = 64)
 	@Column(nullable = false, updatable = false, insertable = true, length = 64, unique = true)
@@ -73,8 +93,22 @@ public class Document extends BaseEntity {
 	@Column(nullable = false, updatable = true, length = 63)
 	private String type;
 
-	@NotNull @Size(min = 1, max = 16777215)
+	@NotNull
+	@Enumerated(EnumType.STRING)
+	@Column(name = "storageAlias", nullable = false, updatable = false, insertable = true)
+	private Storage storage;
+
+	@Positive
 	@Column(nullable = false, updatable = false, insertable = true)
+	private long size;
+
+	@Size(min = 1, max = 15)
+	@Column(name = "contentEncoding", nullable = true, updatable = false, insertable = true, length = 15)
+	private String encoding;
+
+	@Size(min = 1, max = 16777215)
+	@Basic(fetch = FetchType.LAZY)
+	@Column(nullable = true, updatable = false, insertable = true)
 	private byte[] content;
 	
 	@OneToMany(mappedBy = "avatar")
@@ -89,13 +123,46 @@ public class Document extends BaseEntity {
 
 
 	/**
-	 * Initializes a new instance.
+	 * Initializes a new instance storing the given content inline.
 	 * @param content the content
 	 */
 	public Document (final byte[] content) {
+		this(content, null);
+	}
+
+
+	/**
+	 * Initializes a new instance storing the given content inline, encoded using the given HTTP content encoding.
+	 * @param content the decoded content
+	 * @param encoding the content encoding (see {@link ContentEncodings}), or {@code null} for none
+	 * @throws IllegalArgumentException if the given encoding is not supported
+	 */
+	public Document (final byte[] content, final String encoding) throws IllegalArgumentException {
 		this.hash = HashCodes.sha2HashText(256, content);
 		this.type = "application/octet-stream";
-		this.content = content;
+		this.storage = Storage.INLINE;
+		this.size = content == null ? 0 : content.length;
+		this.encoding = encoding;
+		this.content = content == null || encoding == null ? content : ContentEncodings.encode(content, encoding);
+	}
+
+
+	/**
+	 * Initializes a new instance whose content is stored outside of the document, either in chunks (see
+	 * {@link DocumentChunk}), or in a content-addressed file system store.
+	 * @param hash the 64 character long quasi-unique SHA-256 hash of the content
+	 * @param size the content size in bytes
+	 * @param storage the content storage, either {@link Storage#CHUNKED} or {@link Storage#FILE}
+	 * @throws IllegalArgumentException if the given storage is {@link Storage#INLINE}
+	 */
+	public Document (final String hash, final long size, final Storage storage) throws IllegalArgumentException {
+		if (storage == Storage.INLINE) throw new IllegalArgumentException();
+		this.hash = hash;
+		this.type = "application/octet-stream";
+		this.storage = storage;
+		this.size = size;
+		this.encoding = null;
+		this.content = null;
 	}
 
 
@@ -138,8 +205,39 @@ public class Document extends BaseEntity {
 
 
 	/**
-	 * Returns the content.
-	 * @return the content
+	 * Returns the storage.
+	 * @return the content storage
+	 */
+	@JsonbProperty @XmlAttribute
+	public Storage getStorage () {
+		return this.storage;
+	}
+
+
+	/**
+	 * Returns the size.
+	 * @return the content size in bytes
+	 */
+	@JsonbProperty @XmlAttribute
+	public long getSize () {
+		return this.size;
+	}
+
+
+	/**
+	 * Returns the encoding.
+	 * @return the HTTP content encoding of the inline content, or {@code null} for none
+	 */
+	@JsonbTransient  @XmlTransient
+	public String getEncoding () {
+		return this.encoding;
+	}
+
+
+	/**
+	 * Returns the content, which is fetched lazily upon first access.
+	 * @return the content as stored, i.e. encoded if {@link #getEncoding()} is not {@code null}, or {@code null} if it is
+	 *         not stored inline
 	 */
 	@JsonbTransient  @XmlTransient
 	public byte[] getContent () {
@@ -0,0 +1,150 @@
+package edu.sb.poker.persistence;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import org.eclipse.persistence.annotations.Cache;
+import org.eclipse.persistence.config.CacheIsolationType;
+
+
+/**
+ * This class models document chunk entities based on database rows. Chunks store consecutive slices of a document's content
+ * in 32KB VARBINARY fields, and are used for documents whose content is too large to be mapped into a single byte array, see
+ * {@link Document.Storage#CHUNKED}. Chunks are written and read one after another, which keeps the memory demand of a document
+ * transfer constant regardless of the document's size. Note that chunks are isolated from the 2nd level cache, as caching
+ * large content in slices would merely crowd out the entities actually benefiting from it. Also note that chunks are no
+ * base entities, but are identified by their document and sequence number instead; this avoids a base entity row per chunk,
+ * and prevents chunks from being exposed as polymorphic entity resources.
+ */
+@Entity
+@Table(schema = "poker", name = "DocumentChunk")
+@IdClass(DocumentChunk.Key.class)
+@Cache(isolation = CacheIsolationType.ISOLATED)
+public class DocumentChunk {
+	static public final int MAX_SIZE = 0x8000;
+
+	@Id
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
+	@JoinColumn(name = "documentReference", nullable = false, updatable = false, insertable = true)
+	@NotNull
+	private Document document;
+
+	@Id
+	@PositiveOrZero
+	@Column(nullable = false, updatable = false, insertable = true)
+	private int sequence;
+
+	@NotNull @Size(min = 1, max = MAX_SIZE)
+	@Column(nullable = false, updatable = false, insertable = true, length = MAX_SIZE)
+	private byte[] content;
+
+
+	/**
+	 * Initializes a new instance for JPA.
+	 */
+	protected DocumentChunk () {
+		this(null, 0, null);
+	}
+
+
+	/**
+	 * Initializes a new instance.
+	 * @param document the document
+	 * @param sequence the sequence number of this chunk within the document
+	 * @param content the content slice
+	 */
+	public DocumentChunk (final Document document, final int sequence, final byte[] content) {
+		this.document = document;
+		this.sequence = sequence;
+		this.content = content;
+	}
+
+
+	/**
+	 * Returns the document.
+	 * @return the document
+	 */
+	public Document getDocument () {
+		return this.document;
+	}
+
+
+	/**
+	 * Returns the sequence number.
+	 * @return the sequence number of this chunk within the document
+	 */
+	public int getSequence () {
+		return this.sequence;
+	}
+
+
+	/**
+	 * Returns the content.
+	 * @return the content slice
+	 */
+	public byte[] getContent () {
+		return this.content;
+	}
+
+
+
+	/**
+	 * Instances of this static inner class model document chunk primary keys, consisting of the document identity and the
+	 * chunk's sequence number.
+	 */
+	static public class Key implements Serializable {
+		static private final long serialVersionUID = 1L;
+
+		private long document;
+		private int sequence;
+
+
+		/**
+		 * Initializes a new instance for JPA.
+		 */
+		public Key () {
+			this(0, 0);
+		}
+
+
+		/**
+		 * Initializes a new instance.
+		 * @param document the document identity
+		 * @param sequence the sequence number of the chunk within the document
+		 */
+		public Key (final long document, final int sequence) {
+			this.document = document;
+			this.sequence = sequence;
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals (final Object object) {
+			if (!(object instanceof Key)) return false;
+			final Key key = (Key) object;
+			return this.document == key.document & this.sequence == key.sequence;
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode () {
+			return Objects.hash(this.document, this.sequence);
+		}
+	}
+}
@@ -12,14 +12,16 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToMany;
 import javax.persistence.PrimaryKeyJoinColumn;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 import javax.xml.bind.annotation.XmlAttribute;
-import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlType;
@@ -67,17 +69,26 @@ import edu.sb.poker.util.JsonProtectedPropertyStrategy;
 @XmlType @XmlRootElement
 @Table(schema = "poker", name = "Game")
 @PrimaryKeyJoinColumn(name = "gameIdentity")
+@NamedEntityGraph(name = Game.REPRESENTATION, attributeNodes = @NamedAttributeNode("hands"))
 public class Game extends BaseEntity{
+	/**
+	 * The fetch graph loading exactly the attributes required to marshal a game.
+	 */
+	static public final String REPRESENTATION = "Game.representation";
 	
 	static public enum State{
 		DEAL, DEAL_BET, DRAW, DRAW_BET, SHOWDOWN;
 	}
 	
-	@ManyToOne(optional = false)
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
 	@JoinColumn(name = "pokerTableReference", nullable = false, updatable = false, insertable = true)
 	@NotNull
 	private PokerTable table;
 	
+	// read-only foreign key projection, allowing the reference to be marshaled without loading the table
+	@Column(name = "pokerTableReference", nullable = false, updatable = false, insertable = false)
+	private long tableReference;
+	
 	@Enumerated(EnumType.STRING)
 	@Column(name = "stateAlias", nullable = false, updatable = true)
 	@NotNull
@@ -96,18 +107,19 @@ public class Game extends BaseEntity{
 	
 	public Game(PokerTable table) {
 		super();
-		this.table = table;
+		this.setTable(table);
 		this.state = State.DEAL;
 		this.hands = Collections.emptySet();
 	}
 	
-	@JsonbProperty @XmlElement
+	@JsonbTransient @XmlTransient
 	public PokerTable getTable() {
 		return table;
 	}
 	
 	public void setTable(PokerTable table) {
 		this.table = table;
+		this.tableReference = table == null ? 0 : table.getIdentity();
 	}
 	
 	@JsonbProperty
@@ -124,6 +136,10 @@ public class Game extends BaseEntity{
 		return hands;
 	}
 	
+	protected void setHands(Set<Hand> hands) {
+		this.hands = hands;
+	}
+	
 	@JsonbProperty @XmlAttribute
 	public long getActivityTimestamp() {
 		return activityTimestamp;
@@ -134,8 +150,8 @@ public class Game extends BaseEntity{
 	}
 	
 	@JsonbProperty @XmlTransient
-	protected long getTableReference() {
-		return this.table == null ? 0 : this.table.getIdentity();
+	public long getTableReference() {
+		return this.tableReference;
 	}
 	
 	@JsonbProperty @XmlTransient
@@ -4,13 +4,17 @@ import java.util.HashSet;
 import java.util.Set;
 
 import javax.json.bind.annotation.JsonbProperty;
+import javax.json.bind.annotation.JsonbTransient;
 import javax.json.bind.annotation.JsonbVisibility;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.PrimaryKeyJoinColumn;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
@@ -18,11 +22,13 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.PositiveOrZero;
 import javax.validation.constraints.Size;
 import javax.xml.bind.annotation.XmlAttribute;
-import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlType;
 
+import org.eclipse.persistence.annotations.Cache;
+import org.eclipse.persistence.config.CacheIsolationType;
+
 import edu.sb.poker.util.JsonProtectedPropertyStrategy;
 
 
@@ -66,7 +72,13 @@ import edu.sb.poker.util.JsonProtectedPropertyStrategy;
 @XmlType @XmlRootElement
 @Table(schema = "poker", name = "Hand")
 @PrimaryKeyJoinColumn(name = "handIdentity")
+@Cache(isolation = CacheIsolationType.ISOLATED)
+@NamedEntityGraph(name = Hand.REPRESENTATION, attributeNodes = @NamedAttributeNode("player"))
 public class Hand extends BaseEntity{
+	/**
+	 * The fetch graph loading exactly the attributes required to marshal a hand.
+	 */
+	static public final String REPRESENTATION = "Hand.representation";
 	
 	@Column(nullable = false, updatable = true)
 	@PositiveOrZero
@@ -78,15 +90,22 @@ public class Hand extends BaseEntity{
 	@Column(nullable = false, updatable = true)
 	private boolean folded;
 	
-	@ManyToOne(optional = false)
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
 	@JoinColumn(name = "gameReference", nullable = false, updatable = false, insertable = true)
 	@NotNull 
 	private Game game;
 	
-	@ManyToOne(optional = false)
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
 	@JoinColumn(name = "playerReference", nullable = true, updatable = false, insertable = true) 
 	private Person player;
 	
+	// read-only foreign key projections, allowing references to be marshaled without loading the related entities
+	@Column(name = "gameReference", nullable = false, updatable = false, insertable = false)
+	private long gameReference;
+	
+	@Column(name = "playerReference", nullable = true, updatable = false, insertable = false)
+	private Long playerReference;
+	
 	@ManyToMany
 	@JoinTable(
 		schema = "poker",
@@ -103,13 +122,14 @@ public class Hand extends BaseEntity{
 		this.cards = new HashSet<>();
 	}
 	
-	@JsonbProperty @XmlElement
+	@JsonbTransient @XmlTransient
 	public Game getGame() {
 		return game;
 	}
 	
 	public void setGame(Game game) {
 		this.game = game;
+		this.gameReference = game == null ? 0 : game.getIdentity();
 	}
 	
 	@JsonbProperty @XmlAttribute
@@ -121,13 +141,14 @@ public class Hand extends BaseEntity{
 		this.bet = bet;
 	}
 	
-	@JsonbProperty @XmlElement
+	@JsonbTransient @XmlTransient
 	public Person getPlayer() {
 		return this.player;
 	}
 	
 	public void setPlayer(Person player) {
 		this.player = player;
+		this.playerReference = player == null ? null : player.getIdentity();
 	}
 	
 	@JsonbProperty @XmlAttribute
@@ -150,9 +171,10 @@ public class Hand extends BaseEntity{
 
 	@JsonbProperty @XmlAttribute
 	public byte getPosition() {
-		return this.player == null ? -1 : this.player.getPosition();
+		return this.player == null || this.player.getPosition() == null ? -1 : this.player.getPosition();
 	}
 	
+	@JsonbTransient @XmlTransient
 	public Set<Card> getCards() {
 		return cards;
 	}
@@ -162,13 +184,13 @@ public class Hand extends BaseEntity{
 	}
 	
 	@JsonbProperty @XmlTransient
-	protected long getGameReference() {
-		return this.game == null ? 0 : this.game.getIdentity();
+	public long getGameReference() {
+		return this.gameReference;
 	}
 	
 	@JsonbProperty @XmlTransient
 	protected Long getPlayerReference() {
-		return this.player == null ? null : this.player.getIdentity();
+		return this.playerReference;
 	}
 	
 	public boolean isAllIn() {
@@ -4,6 +4,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import javax.json.bind.annotation.JsonbProperty;
+import javax.json.bind.annotation.JsonbTransient;
 import javax.json.bind.annotation.JsonbVisibility;
 import javax.persistence.AttributeOverride;
 import javax.persistence.AttributeOverrides;
@@ -13,9 +14,13 @@ import javax.persistence.ElementCollection;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
+import javax.persistence.FetchType;
 import javax.persistence.Enumerated;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.PrimaryKeyJoinColumn;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
@@ -30,7 +35,9 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlType;
 
+import org.eclipse.persistence.annotations.Cache;
 import org.eclipse.persistence.annotations.CacheIndex;
+import org.eclipse.persistence.annotations.CacheType;
 
 import edu.sb.poker.util.HashCodes;
 import edu.sb.poker.util.JsonProtectedPropertyStrategy;
@@ -74,9 +81,16 @@ import edu.sb.poker.util.JsonProtectedPropertyStrategy;
 @Entity
 @JsonbVisibility(JsonProtectedPropertyStrategy.class)
 @XmlType @XmlRootElement
-@Table(schema = "poker", name = "Person", uniqueConstraints = @UniqueConstraint(columnNames = {"pokerTableReference", "position"}))
+@Table(schema = "poker", name = "Person", uniqueConstraints = @UniqueConstraint(columnNames = {"pokerTableReference", "position"}), indexes = @Index(columnList = "surname, forename, email"))
 @PrimaryKeyJoinColumn(name="personIdentity")
+@NamedEntityGraph(name = Person.REPRESENTATION, attributeNodes = @NamedAttributeNode("phones"))
+@Cache(type = CacheType.SOFT_WEAK, size = 1000)
 public class Person extends BaseEntity {
+	/**
+	 * The fetch graph loading exactly the attributes required to marshal a person.
+	 */
+	static public final String REPRESENTATION = "Person.representation";
+	
 	public enum Group{
 		ADMIN, USER;
 	}
@@ -145,14 +159,21 @@ public class Person extends BaseEntity {
 	@PositiveOrZero
 	private Byte position;
 	
-	@ManyToOne(optional = true)
+	@ManyToOne(optional = true, fetch = FetchType.LAZY)
 	@JoinColumn(name="pokerTableReference", nullable = true, updatable = true)
 	private PokerTable table;
 	
-	@ManyToOne(optional = false)
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
 	@JoinColumn(name="avatarReference", nullable = false, updatable = true)
 	private Document avatar;
 	
+	// read-only foreign key projections, allowing references to be marshaled without loading the related entities
+	@Column(name="pokerTableReference", nullable = true, insertable = false, updatable = false)
+	private Long tableReference;
+	
+	@Column(name="avatarReference", nullable = false, insertable = false, updatable = false)
+	private long avatarReference;
+	
 	public Person() {
 		super();
 		this.passwordHash = DEFAULT_PASSWORD_HASH;
@@ -164,7 +185,7 @@ public class Person extends BaseEntity {
     
 	@JsonbProperty @XmlElement
 	public Name getName() {
-		return null;
+		return name;
 	}
 	
 	protected void setName(Name name) {
@@ -198,13 +219,14 @@ public class Person extends BaseEntity {
 		this.email = email;
 	}
 	
-	@JsonbProperty @XmlElement
+	@JsonbTransient @XmlTransient
 	public PokerTable getPokerTable() {
 		return this.table; 
 	}
 	
 	public void setPokerTable (PokerTable table) {
 		this.table = table;
+		this.tableReference = table == null ? null : table.getIdentity();
 	}
 	
 	@JsonbProperty @XmlElement
@@ -258,17 +280,18 @@ public class Person extends BaseEntity {
 
 	public void setAvatarReference (long id) {
 		this.avatar.setIdentity(id);
+		this.avatarReference = id;
 	}
 
 
 	@JsonbProperty @XmlTransient
 	protected long getAvatarReference() {
-		return this.avatar == null ? 0 : this.avatar.getIdentity();
+		return this.avatarReference;
 	}
 	
 	@JsonbProperty @XmlTransient
-	protected Long getTableReference() {
-		return this.table == null ? null : this.table.getIdentity();
+	public Long getTableReference() {
+		return this.tableReference;
 	}
 
 }
\ No newline at end of file
@@ -10,19 +10,24 @@ import javax.json.bind.annotation.JsonbVisibility;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToMany;
 import javax.persistence.PrimaryKeyJoinColumn;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import javax.xml.bind.annotation.XmlAttribute;
-import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlType;
 
+import org.eclipse.persistence.annotations.Cache;
+import org.eclipse.persistence.annotations.CacheType;
+
 import edu.sb.poker.util.JsonProtectedPropertyStrategy;
 
 
@@ -66,7 +71,13 @@ import edu.sb.poker.util.JsonProtectedPropertyStrategy;
 @XmlType @XmlRootElement
 @Table(schema = "poker", name = "PokerTable")
 @PrimaryKeyJoinColumn(name = "pokerTableIdentity")
+@Cache(type = CacheType.SOFT_WEAK, size = 250)
+@NamedEntityGraph(name = PokerTable.REPRESENTATION, attributeNodes = { @NamedAttributeNode("players"), @NamedAttributeNode("games") })
 public class PokerTable extends BaseEntity{
+	/**
+	 * The fetch graph loading exactly the attributes required to marshal a table.
+	 */
+	static public final String REPRESENTATION = "PokerTable.representation";
 	
 	static public final Comparator<PokerTable> ALIAS_COMPARATOR = Comparator.comparing(PokerTable::getAlias);
 	
@@ -74,10 +85,14 @@ public class PokerTable extends BaseEntity{
 	@Column(nullable = false, updatable = false, insertable = true, length = 32, unique = true)
 	private String alias;
 	
-	@ManyToOne(optional = false)
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
 	@JoinColumn(name="avatarReference", nullable = false, updatable = true)
 	private Document avatar;
 	
+	// read-only foreign key projection, allowing the reference to be marshaled without loading the avatar
+	@Column(name="avatarReference", nullable = false, insertable = false, updatable = false)
+	private long avatarReference;
+	
 	@NotNull
 	@OneToMany(mappedBy= "table", cascade = {CascadeType.REFRESH, CascadeType.MERGE, CascadeType.DETACH})
 	private Set<Person> players;
@@ -106,13 +121,14 @@ public class PokerTable extends BaseEntity{
 		this.alias = alias;
 	}
 
-	@JsonbProperty @XmlElement
+	@JsonbTransient @XmlTransient
 	public Document getAvatar() {
 		return avatar;
 	}
 
 	public void setAvatar(Document avatar) {
 		this.avatar = avatar;
+		this.avatarReference = avatar == null ? 0 : avatar.getIdentity();
 	}
 
 	@JsonbTransient @XmlTransient
@@ -135,7 +151,7 @@ public class PokerTable extends BaseEntity{
 	
 	@JsonbProperty @XmlTransient
 	protected long getAvatarReference() {
-		return this.avatar == null ? 0 : this.avatar.getIdentity();
+		return this.avatarReference;
 	}
 	
 	@JsonbProperty @XmlTransient
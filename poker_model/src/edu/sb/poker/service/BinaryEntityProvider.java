@@ -0,0 +1,147 @@
+package edu.sb.poker.service;
+
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import edu.sb.poker.persistence.BaseEntity;
+import edu.sb.poker.persistence.BinaryCodec;
+
+
+/**
+ * JAX-RS message body provider for the compact binary media type {@value #APPLICATION_POKER}, which supports cards, hands,
+ * games and tables, as well as collections thereof. Clients select it using the {@code Accept} and {@code Content-Type}
+ * headers, which allows mobile clients on poor links to exchange considerably smaller payloads that are cheaper to parse;
+ * see {@link BinaryCodec} for the format. The media type is produced by the table, game and hand resources, and consumed
+ * when posting tables.
+ */
+@Provider
+@Produces(BinaryEntityProvider.APPLICATION_POKER)
+@Consumes(BinaryEntityProvider.APPLICATION_POKER)
+public class BinaryEntityProvider implements MessageBodyWriter<Object>, MessageBodyReader<Object> {
+	static public final String APPLICATION_POKER = "application/x-poker";
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isWriteable (final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType) {
+		return isSupported(type, genericType);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getSize (final Object entity, final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType) {
+		return -1;
+	}
+
+
+	/**
+	 * Writes the given entity, or collection of entities.
+	 * @param entity the entity or entity collection
+	 * @param type the entity type
+	 * @param genericType the generic entity type
+	 * @param annotations the annotations
+	 * @param mediaType the media type
+	 * @param httpHeaders the HTTP response headers
+	 * @param entityStream the entity stream
+	 * @throws IOException if there is an I/O related problem
+	 * @throws WebApplicationException if there is a JAX-RS related problem
+	 */
+	public void writeTo (final Object entity, final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType, final MultivaluedMap<String,Object> httpHeaders, final OutputStream entityStream) throws IOException, WebApplicationException {
+		final DataOutputStream byteSink = new DataOutputStream(new BufferedOutputStream(entityStream));
+		if (entity instanceof Collection)
+			BinaryCodec.writeAll(byteSink, elementType(genericType), (Collection<?>) entity);
+		else
+			BinaryCodec.write(byteSink, (BaseEntity) entity);
+		byteSink.flush();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isReadable (final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType) {
+		return isSupported(type, genericType) && (!Collection.class.isAssignableFrom(type) || type.isAssignableFrom(List.class) || type.isAssignableFrom(LinkedHashSet.class));
+	}
+
+
+	/**
+	 * Reads an entity, or a collection of entities.
+	 * @param type the entity type
+	 * @param genericType the generic entity type
+	 * @param annotations the annotations
+	 * @param mediaType the media type
+	 * @param httpHeaders the HTTP request headers
+	 * @param entityStream the entity stream
+	 * @return the entity or entity collection read
+	 * @throws ClientErrorException (HTTP 400) if the entity stream's content is malformed, or doesn't match the given type
+	 * @throws IOException if there is an I/O related problem
+	 * @throws WebApplicationException if there is a JAX-RS related problem
+	 */
+	public Object readFrom (final Class<Object> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType, final MultivaluedMap<String,String> httpHeaders, final InputStream entityStream) throws ClientErrorException, IOException, WebApplicationException {
+		final Object entity;
+		try {
+			entity = BinaryCodec.read(new DataInputStream(new BufferedInputStream(entityStream)));
+		} catch (final IllegalArgumentException | EOFException exception) {
+			throw new ClientErrorException(BAD_REQUEST);
+		}
+
+		if (entity instanceof List) {
+			final Class<?> elementType = elementType(genericType);
+			if (!((List<?>) entity).stream().allMatch(elementType::isInstance)) throw new ClientErrorException(BAD_REQUEST);
+			if (!type.isInstance(entity)) return new LinkedHashSet<>((List<?>) entity);
+		}
+
+		if (!type.isInstance(entity)) throw new ClientErrorException(BAD_REQUEST);
+		return entity;
+	}
+
+
+	/**
+	 * Returns whether or not the given type is supported, either as entity type, or as collection of said.
+	 * @param type the type
+	 * @param genericType the generic type
+	 * @return {@code true} if the type is supported, {@code false} otherwise
+	 */
+	static private boolean isSupported (final Class<?> type, final Type genericType) {
+		return Collection.class.isAssignableFrom(type)
+			? BinaryCodec.isSupported(elementType(genericType))
+			: BinaryCodec.isSupported(type);
+	}
+
+
+	/**
+	 * Returns the element type of the given generic collection type.
+	 * @param genericType the generic collection type, like {@code Set<Card>}
+	 * @return the element type, or {@code null} if it cannot be determined
+	 */
+	static private Class<?> elementType (final Type genericType) {
+		if (!(genericType instanceof ParameterizedType)) return null;
+
+		final Type[] typeArguments = ((ParameterizedType) genericType).getActualTypeArguments();
+		return typeArguments.length == 1 && typeArguments[0] instanceof Class ? (Class<?>) typeArguments[0] : null;
+	}
+}
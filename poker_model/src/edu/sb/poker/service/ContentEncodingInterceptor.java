@@ -0,0 +1,74 @@
+package edu.sb.poker.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import edu.sb.poker.util.ContentEncodings;
+import edu.sb.poker.util.HttpRanges;
+
+
+/**
+ * JAX-RS writer interceptor provider that compresses response entities on the fly, based on the request's
+ * {@code Accept-Encoding} header. Only compressible content types are compressed, like the JSON representations of entities
+ * and entity lists. Responses already carrying a {@code Content-Encoding} (like precompressed document content) are passed
+ * through as-is, and so are partial responses, as byte ranges refer to the unencoded representation. As the compressed
+ * representation differs from the uncompressed one, a strong entity tag is weakened, which keeps {@code If-None-Match}
+ * revalidation working for both representations while preventing it's use for byte range requests.
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class ContentEncodingInterceptor implements WriterInterceptor {
+
+	@Context
+	private HttpHeaders requestHeaders;
+
+
+	/**
+	 * Writes the response entity, compressing it if the client accepts a supported encoding and the content type is
+	 * compressible.
+	 * @param context the writer interceptor context
+	 * @throws IOException if there is an I/O related problem
+	 * @throws WebApplicationException if there is a JAX-RS related problem
+	 */
+	public void aroundWriteTo (final WriterInterceptorContext context) throws IOException, WebApplicationException {
+		final MultivaluedMap<String,Object> responseHeaders = context.getHeaders();
+		final String encoding = ContentEncodings.negotiate(this.requestHeaders.getHeaderString(ContentEncodings.ACCEPT_ENCODING));
+		final boolean compressible = context.getMediaType() != null && ContentEncodings.isCompressible(context.getMediaType().toString());
+		final List<Object> varyValues = responseHeaders.getOrDefault(ContentEncodings.VARY, List.of());
+		if (compressible && varyValues.stream().noneMatch(value -> ContentEncodings.ACCEPT_ENCODING.equalsIgnoreCase(value.toString()))) responseHeaders.add(ContentEncodings.VARY, ContentEncodings.ACCEPT_ENCODING);
+
+		if (encoding == null || !compressible || responseHeaders.containsKey(ContentEncodings.CONTENT_ENCODING) || responseHeaders.containsKey(HttpRanges.CONTENT_RANGE)) {
+			context.proceed();
+			return;
+		}
+
+		responseHeaders.putSingle(ContentEncodings.CONTENT_ENCODING, encoding);
+		responseHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+		final Object entityTag = responseHeaders.getFirst(HttpHeaders.ETAG);
+		if (entityTag != null) {
+			final EntityTag tag = entityTag instanceof EntityTag ? (EntityTag) entityTag : EntityTag.valueOf(entityTag.toString());
+			if (!tag.isWeak()) responseHeaders.putSingle(HttpHeaders.ETAG, new EntityTag(tag.getValue(), true));
+		}
+
+		final OutputStream byteSink = context.getOutputStream();
+		final DeflaterOutputStream encoderStream = ContentEncodings.newEncoderStream(byteSink, encoding);
+		context.setOutputStream(encoderStream);
+		try {
+			context.proceed();
+			encoderStream.finish();
+		} finally {
+			context.setOutputStream(byteSink);
+		}
+	}
+}
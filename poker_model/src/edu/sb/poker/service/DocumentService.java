@@ -2,10 +2,21 @@ package edu.sb.poker.service;
 
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
 import static javax.ws.rs.core.MediaType.WILDCARD;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 import static javax.ws.rs.core.Response.Status.CONFLICT;
 import static javax.ws.rs.core.Response.Status.NOT_ACCEPTABLE;
 import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.REQUEST_ENTITY_TOO_LARGE;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -14,6 +25,7 @@ import javax.persistence.PersistenceException;
 import javax.persistence.RollbackException;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Positive;
 import javax.ws.rs.ClientErrorException;
 import javax.ws.rs.Consumes;
@@ -23,18 +35,33 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import edu.sb.poker.persistence.Document;
+import edu.sb.poker.persistence.DocumentChunk;
+import edu.sb.poker.util.ContentEncodings;
+import edu.sb.poker.util.ContentStore;
 import edu.sb.poker.util.Copyright;
 import edu.sb.poker.util.HashCodes;
+import edu.sb.poker.util.HttpRanges;
+import edu.sb.poker.util.HttpRanges.ByteRange;
+import edu.sb.poker.util.HttpRanges.RangeWriter;
+import edu.sb.poker.util.NumeralSystems;
 import edu.sb.poker.util.RestJpaLifecycleProvider;
 
 
 /**
  * JAX-RS based REST service implementation for polymorphic entity resources, defining the following path and method combinations:
  * <ul>
+ * <li><b>GET documents</b>: Returns the identity of the document with the given content hash, also available using HEAD
+ * in order to avoid response content.</li>
  * <li><b>GET documents/{id}</b>: Returns the content of the document with the given identity.</li>
- * <li><b>POST documents</b>: Creates or updates a document from content.</li>
+ * <li><b>POST documents</b>: Creates or updates a document from content, optionally announcing the content hash up front.</li>
  * </ul>
  */
 @Path("documents")
@@ -42,59 +69,149 @@ import edu.sb.poker.util.RestJpaLifecycleProvider;
 public class DocumentService {
 	static private final String HEADER_ACCEPT = "Accept";
 	static private final String HEADER_CONTENT_TYPE = "Content-Type";
+	static public final String CONTENT_HASH = "Content-Hash";
+	static public final String DOCUMENT_IDENTITY = "Document-Identity";
+	static private final String HASH_PATTERN = "^[0-9a-fA-F]{64}$";
+	static private final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
 	static private final String DOCUMENT_QUERY = "select d from Document as d where d.hash = :hash";
+	static private final String CHUNK_QUERY = "select c.content from DocumentChunk as c where c.document.identity = :documentIdentity and c.sequence = :sequence";
+	static private final int CHUNK_FLUSH_INTERVAL = 32;
+	static private final long MAX_CONTENT_SIZE = 0x4000000L;
 
-	@POST
-	@Consumes(WILDCARD)
+
+	/**
+	 * Returns the identity of the document with the given content hash, which allows clients to check if content needs to be
+	 * uploaded at all. The identity is returned both as content and as header {@value #DOCUMENT_IDENTITY}, as the JAX-RS
+	 * runtime answers HEAD requests by discarding the content of this method's response.
+	 * @param contentHash the SHA-256 content hash
+	 * @return the document identity (HTTP 200)
+	 * @throws ClientErrorException (HTTP 404) if there is no document with the given content hash
+	 * @throws PersistenceException (HTTP 500) if there is a problem with the persistence layer
+	 */
+	@GET
 	@Produces(TEXT_PLAIN)
-	public long modifyDocument (
-		@NotNull @NotEmpty final byte[] content,
-		@HeaderParam(HEADER_CONTENT_TYPE) @NotEmpty final String contentType
+	public Response queryDocumentIdentity (
+		@QueryParam("hash") @NotNull @Pattern(regexp = HASH_PATTERN) final String contentHash
 	) {
 		final EntityManager pokerManager = RestJpaLifecycleProvider.entityManager("poker");
-		final String contentHash = HashCodes.sha2HashText(256, content);
+		final Document document = queryDocument(pokerManager, contentHash.toLowerCase());
+		if (document == null) throw new ClientErrorException(NOT_FOUND);
 
-		final Document document = pokerManager.createQuery(DOCUMENT_QUERY, Document.class)
-			.setParameter("hash", contentHash)
-			.getResultList()
-			.stream()
-			.findAny()
-			.orElse(new Document(content));
-		document.setType(contentType);
+		return Response.ok(Long.toString(document.getIdentity())).header(DOCUMENT_IDENTITY, document.getIdentity()).build();
+	}
 
-		if (document.getIdentity() == 0) {
-			pokerManager.persist(document);
-		} else {
-			pokerManager.flush();
+
+	/**
+	 * Creates or updates a document from the given content, which is consumed as a stream: The content is spooled into a
+	 * temporary file while it's hash is calculated, and rejected as soon as it exceeds the maximum content size. Documents
+	 * with the same content hash are merely updated, without storing their content again. If the client announces the content
+	 * hash using header {@value #CONTENT_HASH}, and a document with this hash exists, the content is not consumed at all;
+	 * otherwise the announced hash is verified against the content received. Small content of compressible types is stored
+	 * gzip compressed, in order to be served as-is to clients accepting this encoding.
+	 * @param contentSource the content source
+	 * @param contentType the content type
+	 * @param contentLength the announced content length, or {@code null} for none
+	 * @param announcedHash the announced SHA-256 content hash, or {@code null} for none
+	 * @return the document identity
+	 * @throws ClientErrorException (HTTP 400) if the given content is empty, or doesn't match the announced hash
+	 * @throws ClientErrorException (HTTP 409) if there is a conflict
+	 * @throws ClientErrorException (HTTP 413) if the given content is too large
+	 * @throws IOException (HTTP 500) if there is an I/O related problem
+	 * @throws PersistenceException (HTTP 500) if there is a problem with the persistence layer
+	 */
+	@POST
+	@Consumes(WILDCARD)
+	@Produces(TEXT_PLAIN)
+	public long modifyDocument (
+		@NotNull final InputStream contentSource,
+		@HeaderParam(HEADER_CONTENT_TYPE) @NotEmpty final String contentType,
+		@HeaderParam(HttpHeaders.CONTENT_LENGTH) final Long contentLength,
+		@HeaderParam(CONTENT_HASH) @Pattern(regexp = HASH_PATTERN) final String announcedHash
+	) throws IOException {
+		final EntityManager pokerManager = RestJpaLifecycleProvider.entityManager("poker");
+		if (announcedHash != null) {
+			final Document document = queryDocument(pokerManager, announcedHash.toLowerCase());
+			if (document != null) return modifyType(pokerManager, document, contentType);
 		}
 
+		if (contentLength != null && contentLength > MAX_CONTENT_SIZE) throw new ClientErrorException(REQUEST_ENTITY_TOO_LARGE);
+
+		final java.nio.file.Path contentFile = Files.createTempFile("document-", ".tmp");
 		try {
-			pokerManager.getTransaction().commit();
-		} catch (final RollbackException exception) {
-			throw new ClientErrorException(CONFLICT);
+			final MessageDigest contentDigest = HashCodes.sha2MessageDigest(256);
+			final long contentSize;
+			try (InputStream byteSource = new DigestInputStream(contentSource, contentDigest)) {
+				try (OutputStream byteSink = Files.newOutputStream(contentFile)) {
+					contentSize = spool(byteSource, byteSink, MAX_CONTENT_SIZE);
+				}
+			}
+			if (contentSize == 0) throw new ClientErrorException(BAD_REQUEST);
+			final String contentHash = String.valueOf(NumeralSystems.toHexadecimal(contentDigest.digest()));
+			if (announcedHash != null && !announcedHash.equalsIgnoreCase(contentHash)) throw new ClientErrorException(BAD_REQUEST);
+
+			Document document = queryDocument(pokerManager, contentHash);
+			if (document != null) return modifyType(pokerManager, document, contentType);
+
+			// with a content store configured, the database keeps only metadata; otherwise large content is chunked
+			final ContentStore contentStore = ContentStore.configured();
+			if (contentStore != null) {
+				contentStore.store(contentHash, contentFile);
+				document = new Document(contentHash, contentSize, Document.Storage.FILE);
+				document.setType(contentType);
+				pokerManager.persist(document);
+			} else if (contentSize <= Document.MAX_INLINE_SIZE) {
+				document = new Document(Files.readAllBytes(contentFile), ContentEncodings.isCompressible(contentType) ? ContentEncodings.GZIP : null);
+				document.setType(contentType);
+				pokerManager.persist(document);
+			} else {
+				document = new Document(contentHash, contentSize, Document.Storage.CHUNKED);
+				document.setType(contentType);
+				pokerManager.persist(document);
+				try (InputStream byteSource = Files.newInputStream(contentFile)) {
+					persistChunks(pokerManager, document, byteSource);
+				}
+			}
+
+			commit(pokerManager);
+			return document.getIdentity();
 		} finally {
-			pokerManager.getTransaction().begin();
+			Files.deleteIfExists(contentFile);
 		}
-
-		return document.getIdentity();
 	}
 
 
 	/**
-	 * Returns the document's content with the given identity.
+	 * Returns the document's content with the given identity. As a document's content never changes, the response is tagged
+	 * with the content hash as strong entity tag, and marked as immutable for caches. Requests whose {@code If-None-Match}
+	 * header matches the document's hash are answered with 304 (not modified), without touching the document's content.
+	 * Range requests are answered with the requested byte ranges (HTTP 206), as single part or multipart content, unless an
+	 * {@code If-Range} header doesn't match the document's hash. Content stored compressed is served as-is to clients accepting
+	 * it's encoding, tagged with a weak entity tag as the representation differs; otherwise it is decoded while being written.
+	 * @param request the request
 	 * @param documentIdentity the document identity
-	 * @return the matching content (HTTP 200)
+	 * @param accept the accepted content types
+	 * @param range the requested byte ranges, or {@code null} for none
+	 * @param ifRange the entity tag the byte ranges are conditional upon, or {@code null} for none
+	 * @param acceptEncoding the accepted content encodings, or {@code null} for none
+	 * @return the matching content (HTTP 200), the matching byte ranges (HTTP 206), or no content (HTTP 304), or no content
+	 *         (HTTP 416) if none of the requested byte ranges is satisfiable
 	 * @throws ClientErrorException (HTTP 404) if the given document cannot be found
 	 * @throws ClientErrorException (HTTP 415) if the given document cannot be compressed due to it's format
 	 * @throws PersistenceException (HTTP 500) if there is a problem with the persistence layer
-	 * @throws IllegalStateException (HTTP 500) if the entity manager associated with the current thread is not open
+	 * @throws IllegalStateException (HTTP 500) if the entity manager associated with the current thread is not open, or if
+	 *         the document's content is file based and there is no content store configured
+	 * @throws NoSuchFileException (HTTP 500) if the document's content is file based and missing from the content store
 	 */
 	@GET
 	@Path("{id}")
 	@Produces(WILDCARD)
 	public Response findDocument (
+		@Context final Request request,
 		@PathParam("id") @Positive final long documentIdentity,
-		@HeaderParam(HEADER_ACCEPT) @NotNull @NotEmpty final String accept
+		@HeaderParam(HEADER_ACCEPT) @NotNull @NotEmpty final String accept,
+		@HeaderParam(HttpRanges.RANGE) final String range,
+		@HeaderParam(HttpRanges.IF_RANGE) final String ifRange,
+		@HeaderParam(ContentEncodings.ACCEPT_ENCODING) final String acceptEncoding
 	) throws IOException {
 		final EntityManager pokerManager = RestJpaLifecycleProvider.entityManager("poker");
 		final Document document = pokerManager.find(Document.class, documentIdentity);
@@ -104,6 +221,191 @@ public class DocumentService {
 		final Set<String> acceptTypes = Stream.of(accept.split(",")).map(type -> type.split(";")[0]).collect(Collectors.toSet());
 		if (!acceptTypes.contains(WILDCARD) & !acceptTypes.contains(groupType) & !acceptTypes.contains(document.getType())) throw new ClientErrorException(NOT_ACCEPTABLE);
 
-		return Response.ok(document.getContent(), document.getType()).build();
+		final EntityTag entityTag = new EntityTag(document.getHash());
+		final Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+		if (notModified != null) return notModified.tag(entityTag).header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL).build();
+
+		final long size = document.getSize();
+		final String type = document.getType();
+		final RangeWriter rangeWriter = rangeWriter(pokerManager, document);
+		final List<ByteRange> ranges = ifRange == null || ifRange.trim().equals(entityTag.toString()) ? HttpRanges.parse(range, size) : null;
+
+		final String encoding = document.getEncoding();
+		EntityTag responseTag = entityTag;
+		final Response.ResponseBuilder response;
+		if (ranges == null && encoding != null && ContentEncodings.accepts(acceptEncoding, encoding)) {
+			final byte[] content = document.getContent();
+			final StreamingOutput contentWriter = byteSink -> byteSink.write(content);
+			response = Response.ok(contentWriter, type).header(ContentEncodings.CONTENT_ENCODING, encoding).header(HttpHeaders.CONTENT_LENGTH, content.length);
+			responseTag = new EntityTag(entityTag.getValue(), true);
+		} else if (ranges == null) {
+			final StreamingOutput contentWriter = byteSink -> rangeWriter.write(0, size, byteSink);
+			response = Response.ok(contentWriter, type).header(HttpHeaders.CONTENT_LENGTH, size);
+		} else if (ranges.isEmpty()) {
+			response = Response.status(HttpRanges.RANGE_NOT_SATISFIABLE).header(HttpRanges.CONTENT_RANGE, HttpRanges.BYTES + " */" + size);
+		} else if (ranges.size() == 1) {
+			final ByteRange byteRange = ranges.get(0);
+			final StreamingOutput contentWriter = byteSink -> rangeWriter.write(byteRange.getOffset(), byteRange.getLength(), byteSink);
+			response = Response.status(HttpRanges.PARTIAL_CONTENT).entity(contentWriter).type(type)
+				.header(HttpRanges.CONTENT_RANGE, byteRange.toContentRange(size))
+				.header(HttpHeaders.CONTENT_LENGTH, byteRange.getLength());
+		} else {
+			final String boundary = HttpRanges.newBoundary();
+			final StreamingOutput contentWriter = byteSink -> HttpRanges.writeMultipart(byteSink, boundary, type, size, ranges, rangeWriter);
+			response = Response.status(HttpRanges.PARTIAL_CONTENT).entity(contentWriter).type(HttpRanges.multipartType(boundary))
+				.header(HttpHeaders.CONTENT_LENGTH, HttpRanges.multipartLength(boundary, type, size, ranges));
+		}
+
+		if (encoding != null || ContentEncodings.isCompressible(type)) response.header(ContentEncodings.VARY, ContentEncodings.ACCEPT_ENCODING);
+		return response.tag(responseTag).header(HttpRanges.ACCEPT_RANGES, HttpRanges.BYTES).header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL).build();
+	}
+
+
+	/**
+	 * Returns a range writer for the given document's content, which seeks to a range's offset without reading the preceding
+	 * content: Chunked content is queried starting with the chunk containing the offset, file based content is read using
+	 * positional channel transfers, and inline content is fetched lazily and decoded at most once, before being sliced for
+	 * every range.
+	 * @param pokerManager the entity manager
+	 * @param document the document
+	 * @return the range writer
+	 * @throws IllegalStateException if the document's content is file based and there is no content store configured
+	 * @throws NoSuchFileException if the document's content is file based and missing from the content store
+	 */
+	static private RangeWriter rangeWriter (final EntityManager pokerManager, final Document document) throws IllegalStateException, NoSuchFileException {
+		final long documentIdentity = document.getIdentity();
+		switch (document.getStorage()) {
+			case CHUNKED:
+				return (offset, length, byteSink) -> {
+					for (long position = offset, end = offset + length; position < end; ) {
+						final byte[] chunk = pokerManager.createQuery(CHUNK_QUERY, byte[].class)
+							.setParameter("documentIdentity", documentIdentity)
+							.setParameter("sequence", (int) (position / DocumentChunk.MAX_SIZE))
+							.getSingleResult();
+						final int chunkOffset = (int) (position % DocumentChunk.MAX_SIZE);
+						final int chunkLength = (int) Math.min(chunk.length - chunkOffset, end - position);
+						byteSink.write(chunk, chunkOffset, chunkLength);
+						position += chunkLength;
+					}
+				};
+			case FILE: {
+				final ContentStore contentStore = ContentStore.configured();
+				if (contentStore == null) throw new IllegalStateException();
+				if (!contentStore.contains(document.getHash())) throw new NoSuchFileException(contentStore.path(document.getHash()).toString());
+
+				final String contentHash = document.getHash();
+				return (offset, length, byteSink) -> {
+					try (FileChannel fileChannel = contentStore.open(contentHash)) {
+						HttpRanges.transfer(fileChannel, offset, length, byteSink);
+					}
+				};
+			}
+			default:
+				return new RangeWriter() {
+					private byte[] content = null;
+
+					public void write (final long offset, final long length, final OutputStream byteSink) throws IOException {
+						if (this.content == null) this.content = document.getEncoding() == null ? document.getContent() : ContentEncodings.decode(document.getContent(), document.getEncoding());
+						byteSink.write(this.content, (int) offset, (int) length);
+					}
+				};
+		}
+	}
+
+
+	/**
+	 * Returns the document with the given content hash.
+	 * @param pokerManager the entity manager
+	 * @param contentHash the lower case SHA-256 content hash
+	 * @return the document, or {@code null} for none
+	 * @throws PersistenceException if there is a problem with the persistence layer
+	 */
+	static private Document queryDocument (final EntityManager pokerManager, final String contentHash) throws PersistenceException {
+		return pokerManager.createQuery(DOCUMENT_QUERY, Document.class)
+			.setParameter("hash", contentHash)
+			.getResultList()
+			.stream()
+			.findAny()
+			.orElse(null);
+	}
+
+
+	/**
+	 * Updates the given existing document's type, and commits the change.
+	 * @param pokerManager the entity manager
+	 * @param document the document
+	 * @param contentType the content type
+	 * @return the document identity
+	 * @throws ClientErrorException (HTTP 409) if there is a conflict
+	 */
+	static private long modifyType (final EntityManager pokerManager, final Document document, final String contentType) throws ClientErrorException {
+		document.setType(contentType);
+		commit(pokerManager);
+		return document.getIdentity();
+	}
+
+
+	/**
+	 * Commits the current transaction of the given entity manager, and begins a new one.
+	 * @param pokerManager the entity manager
+	 * @throws ClientErrorException (HTTP 409) if there is a conflict
+	 */
+	static private void commit (final EntityManager pokerManager) throws ClientErrorException {
+		try {
+			pokerManager.getTransaction().commit();
+		} catch (final RollbackException exception) {
+			throw new ClientErrorException(CONFLICT);
+		} finally {
+			pokerManager.getTransaction().begin();
+		}
+	}
+
+
+	/**
+	 * Copies the given byte source's content into the given byte sink, and aborts as soon as the given maximum size is exceeded.
+	 * @param byteSource the byte source
+	 * @param byteSink the byte sink
+	 * @param maxSize the maximum number of bytes to be copied
+	 * @return the number of bytes copied
+	 * @throws ClientErrorException (HTTP 413) if the byte source provides more than the given maximum size
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static private long spool (final InputStream byteSource, final OutputStream byteSink, final long maxSize) throws ClientErrorException, IOException {
+		final byte[] buffer = new byte[0x10000];
+		long size = 0;
+		for (int bytesRead = byteSource.read(buffer); bytesRead != -1; bytesRead = byteSource.read(buffer)) {
+			size += bytesRead;
+			if (size > maxSize) throw new ClientErrorException(REQUEST_ENTITY_TOO_LARGE);
+			byteSink.write(buffer, 0, bytesRead);
+		}
+		return size;
+	}
+
+
+	/**
+	 * Persists the given byte source's content as chunks of the given document. The persistence context is flushed
+	 * periodically, and the flushed chunks are detached in order to keep the memory demand constant.
+	 * @param pokerManager the entity manager
+	 * @param document the document
+	 * @param byteSource the byte source
+	 * @throws IOException if there is an I/O related problem
+	 * @throws PersistenceException if there is a problem with the persistence layer
+	 */
+	static private void persistChunks (final EntityManager pokerManager, final Document document, final InputStream byteSource) throws IOException, PersistenceException {
+		final List<DocumentChunk> pendingChunks = new ArrayList<>();
+		for (int sequence = 0; true; ++sequence) {
+			final byte[] content = byteSource.readNBytes(DocumentChunk.MAX_SIZE);
+			if (content.length == 0) break;
+
+			final DocumentChunk chunk = new DocumentChunk(document, sequence, content);
+			pokerManager.persist(chunk);
+			pendingChunks.add(chunk);
+
+			if (pendingChunks.size() == CHUNK_FLUSH_INTERVAL) {
+				pokerManager.flush();
+				pendingChunks.forEach(pokerManager::detach);
+				pendingChunks.clear();
+			}
+		}
 	}
 }
\ No newline at end of file
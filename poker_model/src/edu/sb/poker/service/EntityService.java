@@ -2,11 +2,16 @@ package edu.sb.poker.service;
 
 import static edu.sb.poker.persistence.Person.Group.ADMIN;
 import static edu.sb.poker.service.BasicAuthenticationFilter.REQUESTER_IDENTITY;
+import static edu.sb.poker.service.BinaryEntityProvider.APPLICATION_POKER;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
 import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML_TYPE;
 import static javax.ws.rs.core.Response.Status.CONFLICT;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
 import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import java.util.List;
+import java.util.Map;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceException;
 import javax.persistence.RollbackException;
@@ -15,11 +20,25 @@ import javax.ws.rs.ClientErrorException;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
+import javax.ws.rs.NotAcceptableException;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Variant;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.sessions.SessionProfiler;
 import edu.sb.poker.persistence.BaseEntity;
+import edu.sb.poker.persistence.BinaryCodec;
+import edu.sb.poker.persistence.Game;
+import edu.sb.poker.persistence.Hand;
 import edu.sb.poker.persistence.Person;
+import edu.sb.poker.persistence.PokerTable;
+import edu.sb.poker.util.CacheProfiler;
 import edu.sb.poker.util.Copyright;
 import edu.sb.poker.util.RestJpaLifecycleProvider;
 
@@ -30,31 +49,81 @@ import edu.sb.poker.util.RestJpaLifecycleProvider;
  * <ul>
  * <li>GET entities/{id}: Returns the entity matching the given identity.</li>
  * <li>DELETE entities/{id}: Deletes the entity matching the given identity.</li>
+ * <li>GET entities/cache: Returns the 2nd level cache hit ratios per entity type.</li>
  * </ul>
  */
 @Path("entities")
 @Copyright(year = 2013, holders = "Sascha Baumeister")
 public class EntityService {
+	static private final Map<Class<?>,String> REPRESENTATIONS = Map.of(
+		Game.class, Game.REPRESENTATION,
+		Hand.class, Hand.REPRESENTATION,
+		Person.class, Person.REPRESENTATION,
+		PokerTable.class, PokerTable.REPRESENTATION
+	);
+	static private final List<Variant> TEXT_VARIANTS = Variant.mediaTypes(APPLICATION_JSON_TYPE, APPLICATION_XML_TYPE).build();
+	static private final List<Variant> BINARY_VARIANTS = Variant.mediaTypes(APPLICATION_JSON_TYPE, APPLICATION_XML_TYPE, MediaType.valueOf(APPLICATION_POKER)).build();
+
 
 	/**
-	 * Returns the entity with the given identity.
+	 * Returns the entity with the given identity. The entity is read from a replica database if possible, and it's
+	 * representation is loaded using the fetch plan of it's type, if any. The binary media type is only offered for entity
+	 * types supported by {@link BinaryCodec}; requests accepting nothing else are answered with 406 (not acceptable) for
+	 * other entity types.
+	 * @param requesterIdentity the authenticated requester identity
 	 * @param entityIdentity the entity identity
+	 * @param request the request
 	 * @return the matching entity (HTTP 200)
 	 * @throws ClientErrorException (HTTP 404) if the given entity cannot be found
+	 * @throws NotAcceptableException (HTTP 406) if none of the entity's media types is acceptable
 	 * @throws PersistenceException (HTTP 500) if there is a problem with the persistence layer
 	 * @throws IllegalStateException (HTTP 500) if the entity manager associated with the current thread is not open
 	 */
 	@GET
 	@Path("{id}")
+	@Produces({ APPLICATION_JSON, APPLICATION_XML, APPLICATION_POKER })
+	public Response queryEntity (
+		@HeaderParam(REQUESTER_IDENTITY) @Positive final long requesterIdentity,
+		@PathParam("id") @Positive final long entityIdentity,
+		@Context final Request request
+	) {
+		final EntityManager messengerManager = ReplicaRouter.entityManager(requesterIdentity);
+		BaseEntity entity = messengerManager.find(BaseEntity.class, entityIdentity);
+		if (entity == null) throw new ClientErrorException(NOT_FOUND);
+
+		final String representation = REPRESENTATIONS.get(entity.getClass());
+		if (representation != null) entity = messengerManager.find(entity.getClass(), entityIdentity, Map.of(QueryHints.JPA_LOAD_GRAPH, messengerManager.getEntityGraph(representation)));
+
+		final List<Variant> variants = BinaryCodec.isSupported(entity.getClass()) ? BINARY_VARIANTS : TEXT_VARIANTS;
+		final Variant variant = request.selectVariant(variants);
+		if (variant == null) throw new NotAcceptableException(Response.notAcceptable(variants).build());
+
+		return Response.ok(entity, variant).build();
+	}
+
+
+	/**
+	 * Returns the 2nd level cache hit ratios observed since server start, mapped by entity type name.
+	 * @param requesterIdentity the authenticated requester identity
+	 * @return the cache hit ratios within range [0.0, 1.0] (HTTP 200)
+	 * @throws ClientErrorException (HTTP 403) if the given requester is not an administrator
+	 * @throws ClientErrorException (HTTP 404) if cache profiling is not configured for the persistence unit
+	 * @throws IllegalStateException (HTTP 500) if the entity manager associated with the current thread is not open
+	 */
+	@GET
+	@Path("cache")
 	@Produces({ APPLICATION_JSON, APPLICATION_XML })
-	public BaseEntity queryEntity (
-		@PathParam("id") @Positive final long entityIdentity
+	public Map<String,Double> queryCacheHitRatios (
+		@HeaderParam(REQUESTER_IDENTITY) @Positive final long requesterIdentity
 	) {
 		final EntityManager messengerManager = RestJpaLifecycleProvider.entityManager("poker");
-		final BaseEntity entity = messengerManager.find(BaseEntity.class, entityIdentity);
-		if (entity == null) throw new ClientErrorException(NOT_FOUND);
+		final Person requester = messengerManager.find(Person.class, requesterIdentity);
+		if (requester == null || requester.getGroup() != ADMIN) throw new ClientErrorException(FORBIDDEN);
+
+		final SessionProfiler profiler = JpaHelper.getServerSession(messengerManager.getEntityManagerFactory()).getProfiler();
+		if (!(profiler instanceof CacheProfiler)) throw new ClientErrorException(NOT_FOUND);
 
-		return entity;
+		return ((CacheProfiler) profiler).getHitRatios();
 	}
 
 
@@ -0,0 +1,75 @@
+package edu.sb.poker.service;
+
+import static javax.ws.rs.core.Response.Status.NOT_MODIFIED;
+import static javax.ws.rs.core.Response.Status.OK;
+import java.util.Set;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Provider;
+import edu.sb.poker.persistence.BaseEntity;
+import edu.sb.poker.persistence.Game;
+import edu.sb.poker.persistence.Hand;
+
+
+/**
+ * JAX-RS filter provider that adds HTTP validators to entity responses. Every successful GET or HEAD response whose content
+ * is a single entity is tagged with a strong entity tag combining the entity's identity, it's version (which changes with
+ * every modification due to optimistic locking), and the media type of the representation, as the representations of an
+ * entity differ byte-wise. If the request's {@code If-None-Match} header matches this tag, the response is replaced by 304
+ * (not modified) without content, which saves the entity's marshaling and transfer. The entity is still looked up, but
+ * usually from the 2nd level cache. Clients are asked to revalidate every time using {@code Cache-Control: private, no-cache},
+ * as entities are mutable, and shared caches are told to key on the {@code Accept} header. Note that games and hands remain
+ * untagged, as their representations contain values derived from other entities (like a game's maximum bet, or a hand's
+ * position) whose modification doesn't change their version.
+ */
+@Provider
+@Priority(Priorities.HEADER_DECORATOR)
+public class EntityTagFilter implements ContainerResponseFilter {
+	static private final Set<String> SAFE_METHODS = Set.of("GET", "HEAD");
+	static private final Set<Class<?>> UNTAGGED_TYPES = Set.of(Game.class, Hand.class);
+	static private final String CACHE_CONTROL = "private, no-cache";
+
+
+	/**
+	 * Returns the entity tag for the given entity representation.
+	 * @param entity the entity
+	 * @param mediaType the representation's media type, or {@code null} for none
+	 * @return the strong entity tag
+	 * @throws NullPointerException if the given entity is {@code null}
+	 */
+	static public EntityTag entityTag (final BaseEntity entity, final MediaType mediaType) throws NullPointerException {
+		final String value = entity.getIdentity() + "-" + entity.getVersion();
+		return new EntityTag(mediaType == null ? value : value + "-" + mediaType.getSubtype());
+	}
+
+
+	/**
+	 * This operation is called by the JAX-RS runtime after an HTTP request has been processed, but before the entity stream
+	 * has been written. It tags single entity responses, and evaluates the request's {@code If-None-Match} header against
+	 * said tag.
+	 * @param requestContext the JAX-RS request context
+	 * @param responseContext the JAX-RS response context
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 */
+	public void filter (final ContainerRequestContext requestContext, final ContainerResponseContext responseContext) throws NullPointerException {
+		if (!SAFE_METHODS.contains(requestContext.getMethod()) || responseContext.getStatus() != OK.getStatusCode() || !(responseContext.getEntity() instanceof BaseEntity)) return;
+		if (UNTAGGED_TYPES.contains(responseContext.getEntity().getClass())) return;
+
+		final EntityTag entityTag = entityTag((BaseEntity) responseContext.getEntity(), responseContext.getMediaType());
+		responseContext.getHeaders().putSingle(HttpHeaders.ETAG, entityTag);
+		responseContext.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+		responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+		if (requestContext.getRequest().evaluatePreconditions(entityTag) != null) {
+			responseContext.setStatus(NOT_MODIFIED.getStatusCode());
+			responseContext.setEntity(null);
+			responseContext.getHeaders().remove(HttpHeaders.CONTENT_TYPE);
+		}
+	}
+}
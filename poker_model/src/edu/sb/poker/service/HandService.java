@@ -2,6 +2,7 @@ package edu.sb.poker.service;
 
 import static edu.sb.poker.persistence.Person.Group.ADMIN;
 import static edu.sb.poker.service.BasicAuthenticationFilter.REQUESTER_IDENTITY;
+import static edu.sb.poker.service.BinaryEntityProvider.APPLICATION_POKER;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.APPLICATION_XML;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
@@ -17,6 +18,7 @@ import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -42,6 +44,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
+import org.eclipse.persistence.config.QueryHints;
 import org.eclipse.persistence.oxm.MediaType;
 import edu.sb.poker.persistence.BaseEntity;
 import edu.sb.poker.persistence.Card;
@@ -58,10 +61,13 @@ public class HandService {
 
 	@GET
 	@Path("{id}")
+	@Produces({
+			APPLICATION_JSON, APPLICATION_XML, APPLICATION_POKER
+	})
 	public Hand getHand(@PathParam("id") @Positive final long identity) {
 		final EntityManager messengerManager = RestJpaLifecycleProvider.entityManager("poker");
 
-		Hand hand = messengerManager.find(Hand.class, identity);
+		Hand hand = messengerManager.find(Hand.class, identity, Map.of(QueryHints.JPA_LOAD_GRAPH, messengerManager.getEntityGraph(Hand.REPRESENTATION)));
 		if (hand == null) {
 			throw new ClientErrorException(NOT_FOUND);
 		}
@@ -71,29 +77,41 @@ public class HandService {
 
 	@GET
 	@Path("{id}/cards")
+	@Produces({
+			APPLICATION_JSON, APPLICATION_XML, APPLICATION_POKER
+	})
 	public Set<Card> getCards(@HeaderParam(REQUESTER_IDENTITY) @Positive final long requesterIdentity,
 			@PathParam("id") @Positive final long identity) {
 		final EntityManager pokerManager = RestJpaLifecycleProvider.entityManager("poker");
-		Person requester = pokerManager.find(Person.class, requesterIdentity);
-		Hand hand = pokerManager.createQuery("SELECT * FROM Hand WHERE playerReference = :identity", Hand.class)
-				.getSingleResult();
-		Person handOwner = pokerManager.find(Person.class, hand.getPlayer().getIdentity());
-		Game game = pokerManager.find(Game.class, hand.getGame().getIdentity());
+		final Person requester = pokerManager.find(Person.class, requesterIdentity);
+		final Hand hand = pokerManager.find(Hand.class, identity);
+		if (hand == null) {
+			throw new ClientErrorException(NOT_FOUND);
+		}
 
-		if (requester.getGroup() == Person.Group.ADMIN || requester.getIdentity() == hand.getPlayer().getIdentity()) {
+		if (!isCardsVisible(requester, hand)) {
+			throw new ClientErrorException(FORBIDDEN);
+		}
 
-			return hand.getCards();
-		} else if (handOwner != null && game.getState() == Game.State.SHOWDOWN && !hand.getFolded()) {
-			for (Hand h : game.getHands()) {
-				if (!h.getFolded()) {
-					return hand.getCards();
-				}
-			}
+		return hand.getCards();
+	}
 
-		} else {
-			throw new ClientErrorException(FORBIDDEN);
+	/**
+	 * Returns whether or not the given hand's cards are visible to the given requester. Administrators and the hand's owner
+	 * may always see them; everybody else may see the cards of a player's hand that hasn't folded once it's game has reached
+	 * the showdown. The deck's cards remain hidden from everybody but administrators.
+	 * @param requester the requester, or {@code null} for none
+	 * @param hand the hand
+	 * @return {@code true} if the cards are visible, {@code false} otherwise
+	 * @throws NullPointerException if the given hand is {@code null}
+	 */
+	static public boolean isCardsVisible(final Person requester, final Hand hand) throws NullPointerException {
+		final Person handOwner = hand.getPlayer();
+		if (requester != null && (requester.getGroup() == ADMIN || (handOwner != null && requester.getIdentity() == handOwner.getIdentity()))) {
+			return true;
 		}
-		return null;
+
+		return handOwner != null && !hand.getFolded() && hand.getGame() != null && hand.getGame().getState() == Game.State.SHOWDOWN;
 	}
 
 }
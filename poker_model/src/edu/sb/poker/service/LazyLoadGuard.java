@@ -0,0 +1,111 @@
+package edu.sb.poker.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Priority;
+import javax.persistence.PersistenceException;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+import edu.sb.poker.util.RestJpaLifecycleProvider;
+
+
+/**
+ * JAX-RS writer interceptor provider that guards entity marshaling against lazy loading. Services are expected to load
+ * everything a response requires up front, using the entity graphs defined by the entity types, while relationships not
+ * required for marshaling are fetched lazily. Any query executed while a response entity is being written therefore
+ * indicates a missing fetch plan, and causes the N+1 query pattern for collections. This guard records such queries, and logs
+ * a warning naming the marshaled type and the queries executed once the response entity has been written. Streaming
+ * outputs are exempt, as they query their content deliberately while being written. Note that the session event listener is
+ * registered programmatically, as the persistence unit property {@code eclipselink.session-event-listener} is already occupied
+ * by the {@code CacheCoordinator}.
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class LazyLoadGuard implements WriterInterceptor {
+	static private final String PERSISTENCE_UNIT = "poker";
+	static private final ThreadLocal<Recording> RECORDINGS = new ThreadLocal<>();
+	static private boolean listening = false;
+
+
+	/**
+	 * Initializes a new instance, and registers the session event listener if this hasn't happened yet.
+	 * @throws PersistenceException if there is a problem configuring the persistence context
+	 */
+	public LazyLoadGuard () throws PersistenceException {
+		synchronized (LazyLoadGuard.class) {
+			if (listening) return;
+
+			JpaHelper.getServerSession(RestJpaLifecycleProvider.open(PERSISTENCE_UNIT).getEntityManagerFactory()).getEventManager().addListener(new SessionEventAdapter() {
+
+				/**
+				 * Records the given query if it is executed while a response entity is written within the current thread,
+				 * unless it is nested within another query recorded.
+				 * @param event the session event
+				 */
+				@Override
+				public void preExecuteQuery (final SessionEvent event) {
+					final Recording recording = RECORDINGS.get();
+					if (recording != null && recording.depth++ == 0) recording.queries.add(String.valueOf(event.getQuery()));
+				}
+
+
+				/**
+				 * Ends the recording of the given query's nested queries.
+				 * @param event the session event
+				 */
+				@Override
+				public void postExecuteQuery (final SessionEvent event) {
+					final Recording recording = RECORDINGS.get();
+					if (recording != null && recording.depth > 0) recording.depth -= 1;
+				}
+			});
+			listening = true;
+		}
+	}
+
+
+	/**
+	 * Writes the response entity while recording the queries executed, and logs a warning if there were any.
+	 * @param context the writer interceptor context
+	 * @throws IOException if there is an I/O related problem
+	 * @throws WebApplicationException if there is a JAX-RS related problem
+	 */
+	@Override
+	public void aroundWriteTo (final WriterInterceptorContext context) throws IOException, WebApplicationException {
+		if (StreamingOutput.class.isAssignableFrom(context.getType())) {
+			context.proceed();
+			return;
+		}
+
+		final Recording recording = new Recording();
+		RECORDINGS.set(recording);
+		try {
+			context.proceed();
+		} finally {
+			RECORDINGS.remove();
+			if (!recording.queries.isEmpty())
+				Logger.getGlobal().log(Level.WARNING, "{0} lazy load(s) while marshaling {1}: {2}", new Object[] { recording.queries.size(), context.getType().getName(), recording.queries });
+		}
+	}
+
+
+
+	/**
+	 * Instances of this static inner class record the top level queries executed within a thread while a response entity
+	 * is written, i.e. the queries not executed by other queries, like batch reads.
+	 */
+	static private class Recording {
+		private final List<String> queries = new ArrayList<>();
+		private int depth = 0;
+	}
+}
@@ -9,13 +9,16 @@ import static javax.ws.rs.core.Response.Status.CONFLICT;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
 import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static edu.sb.poker.util.ContinuationTokens.CONTINUATION_TOKEN;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.RollbackException;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.validation.constraints.NotEmpty;
@@ -32,57 +35,81 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import org.eclipse.persistence.annotations.BatchFetchType;
+import org.eclipse.persistence.config.QueryHints;
 import org.eclipse.persistence.oxm.MediaType;
 import edu.sb.poker.persistence.BaseEntity;
 import edu.sb.poker.persistence.Person;
+import edu.sb.poker.util.ContinuationTokens;
 import edu.sb.poker.util.HashCodes;
 import edu.sb.poker.util.RestJpaLifecycleProvider;
 
 @Path("persons")
 public class PersonService {
+	static private final int DEFAULT_RESULT_LIMIT = 100;
+	static private final int MAX_RESULT_LIMIT = 1000;
 
 	@GET
 	@Produces({
 			APPLICATION_JSON, APPLICATION_XML
 	})
-	public List<Person> queryEntity(@QueryParam("forename") String forename, @QueryParam("surname") String surname,
-			@QueryParam("email") String email, @QueryParam("resultOffset") int resultOffset,
+	public Response queryEntity(@HeaderParam(REQUESTER_IDENTITY) @Positive final long requesterIdentity,
+			@QueryParam("forename") String forename, @QueryParam("surname") String surname,
+			@QueryParam("email") String email, @QueryParam("continuation") String continuation,
 			@QueryParam("resultLimit") int resultLimit, @QueryParam("nullOffer") boolean nullOffer,
 			@QueryParam("nullAnswer") boolean nullAnswer) {
 
-		final EntityManager eM = RestJpaLifecycleProvider.entityManager("poker");
+		final EntityManager eM = ReplicaRouter.entityManager(requesterIdentity);
+		final int pageSize = resultLimit <= 0 ? DEFAULT_RESULT_LIMIT : Math.min(resultLimit, MAX_RESULT_LIMIT);
 
-		String queryString = "SELECT id from Person as p WHERE" + "(:forename is null or p.forename = :forename)"
-				+ "AND (:surname is null or p.surname = :surname)" + "AND (:email is null or p.email = :email) ";
+		String queryString = "SELECT p FROM Person AS p WHERE (:forename is null or p.name.given = :forename)"
+				+ " AND (:surname is null or p.name.family = :surname) AND (:email is null or p.email = :email)";
 
 		if (nullOffer) {
-			queryString += " AND (p.negotiationOffer is null)";
+			queryString += " AND (p.negotiation.offer is null)";
 		}
 
 		if (nullAnswer) {
-			queryString += " AND (p.negotiationAnswer is null)";
+			queryString += " AND (p.negotiation.answer is null)";
 		}
 
-		if (resultOffset != 0) {
-			queryString += " Offset " + resultOffset;
+		// keyset pagination: continue after the last person of the previous page, using the (surname, forename, email) index
+		final String[] cursor;
+		try {
+			cursor = continuation == null ? null : ContinuationTokens.decode(continuation, 3);
+		} catch (final IllegalArgumentException exception) {
+			throw new ClientErrorException(BAD_REQUEST);
+		}
+
+		if (cursor != null) {
+			queryString += " AND (p.name.family > :cursorSurname OR (p.name.family = :cursorSurname"
+					+ " AND (p.name.given > :cursorForename OR (p.name.given = :cursorForename AND p.email > :cursorEmail))))";
 		}
 
-		if (resultOffset != 0) {
-			queryString += " Offset " + resultOffset;
+		queryString += " ORDER BY p.name.family, p.name.given, p.email";
+
+		// fetch complete rows in one query, and the phones of the whole page in a single additional IN query
+		final TypedQuery<Person> query = eM.createQuery(queryString, Person.class).setParameter("forename", forename)
+				.setParameter("surname", surname).setParameter("email", email).setMaxResults(pageSize + 1)
+				.setHint(QueryHints.BATCH, "p.phones").setHint(QueryHints.BATCH_TYPE, BatchFetchType.IN);
+		if (cursor != null) {
+			query.setParameter("cursorSurname", cursor[0]).setParameter("cursorForename", cursor[1])
+					.setParameter("cursorEmail", cursor[2]);
 		}
 
-		List<Person> personProxies = eM.createQuery(queryString, Person.class).setParameter("forename", forename)
-				.setParameter("surname", surname).setParameter("email", email).getResultList();
-		List<Person> persons = new ArrayList<Person>();
-		for (Person proxy : personProxies) {
+		final List<Person> results = query.getResultList();
+		final List<Person> persons = new ArrayList<Person>(results.subList(0, Math.min(pageSize, results.size())));
 
-			persons.add(eM.find(Person.class, proxy.getIdentity()));
+		final Response.ResponseBuilder response = Response.ok(new GenericEntity<List<Person>>(persons) {});
+		if (results.size() > pageSize) {
+			final Person last = persons.get(persons.size() - 1);
+			response.header(CONTINUATION_TOKEN, ContinuationTokens.encode(last.getName().getFamily(), last.getName().getGiven(), last.getEmail()));
 		}
 
-		return persons.stream()
-				.sorted(Comparator.comparing(p -> ((Person) p).getName()).thenComparing(p -> ((Person) p).getEmail()))
-				.collect(Collectors.toList());
+		return response.build();
 	}
 
 	@POST
@@ -149,12 +176,12 @@ public class PersonService {
 		final EntityManager messengerManager = RestJpaLifecycleProvider.entityManager("poker");
 
 		if (identity == 0) {
-			final Person requester = messengerManager.find(Person.class, requesterIdentity);
+			final Person requester = messengerManager.find(Person.class, requesterIdentity, Map.of(QueryHints.JPA_LOAD_GRAPH, messengerManager.getEntityGraph(Person.REPRESENTATION)));
 
 			return requester;
 		}
 
-		Person person = messengerManager.find(Person.class, identity);
+		Person person = messengerManager.find(Person.class, identity, Map.of(QueryHints.JPA_LOAD_GRAPH, messengerManager.getEntityGraph(Person.REPRESENTATION)));
 		if (person == null) {
 			throw new ClientErrorException(NOT_FOUND);
 		}
@@ -0,0 +1,351 @@
+package edu.sb.poker.service;
+
+import static edu.sb.poker.service.BasicAuthenticationFilter.REQUESTER_IDENTITY;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Priority;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Response.Status.Family;
+import javax.ws.rs.ext.Provider;
+import org.eclipse.persistence.internal.databaseaccess.Accessor;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+import edu.sb.poker.util.RestJpaLifecycleProvider;
+
+
+/**
+ * JAX-RS filter provider that routes read-only service requests to a MariaDB replica database, using persistence unit
+ * "poker-replica", while all other requests continue to use the primary persistence unit "poker". Replication progress is
+ * tracked using global transaction IDs (GTID):
+ * <ul>
+ * <li><b>Read-your-writes</b>: After each successful modifying request, the GTID of the request's last commit is recorded
+ * for the requester. Subsequent reads of the same requester are only routed to the replica once it has applied this position,
+ * otherwise they are routed to the primary. The GTID is read on the committing connection right after the commit, before
+ * said connection is returned to the pool, which avoids acquiring another connection per modification.</li>
+ * <li><b>Lag detection</b>: The replica is probed periodically, and bypassed completely whenever it fails to apply the
+ * primary's current binlog position within one second, or cannot be reached at all.</li>
+ * </ul>
+ * Note that the replica persistence unit does not use the 2nd level cache, as it would not be invalidated by commits on the
+ * primary. Also note that replica entity managers are created on demand, and closed once the response has been written, or
+ * immediately if the response has no entity; a replica entity manager left behind within a pooled thread is closed before
+ * the thread's next request is processed. The session event listener is registered programmatically, as the persistence
+ * unit property {@code eclipselink.session-event-listener} is already occupied by the {@code CacheCoordinator}.
+ */
+@Provider
+@Priority(Priorities.USER)
+public class ReplicaRouter implements ContainerRequestFilter, ContainerResponseFilter {
+	static private final String PRIMARY_UNIT = "poker";
+	static private final String REPLICA_UNIT = "poker-replica";
+	static private final String POSITION_QUERY = "SELECT @@GLOBAL.gtid_binlog_pos";
+	static private final String COMMIT_POSITION_QUERY = "SELECT @@SESSION.last_gtid";
+	static private final String POSITION_WAIT_QUERY = "SELECT MASTER_GTID_WAIT(?1, ?2)";
+	static private final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+	static private final long PROBE_PERIOD = 5000;
+	static private final int MAX_LAG_SECONDS = 1;
+	static private final long WRITE_TOKEN_LIFETIME = 60000;
+
+	static private final Map<Long,WriteToken> WRITE_TOKENS = new ConcurrentHashMap<>();
+	static private final ThreadLocal<EntityManager> REPLICA_MANAGERS = new ThreadLocal<>();
+	static private final ThreadLocal<Boolean> COMMITTING = new ThreadLocal<>();
+	static private final ThreadLocal<String> COMMIT_POSITIONS = new ThreadLocal<>();
+	static private volatile EntityManagerFactory primaryFactory = null;
+	static private volatile EntityManagerFactory replicaFactory = null;
+	static private volatile boolean replicaAvailable = false;
+	static private ScheduledExecutorService prober = null;
+
+
+	/**
+	 * Initializes a new instance, and starts probing the replica and recording commit positions if this hasn't happened yet.
+	 * @throws PersistenceException if there is a problem configuring the persistence contexts
+	 */
+	public ReplicaRouter () throws PersistenceException {
+		synchronized (ReplicaRouter.class) {
+			if (prober != null) return;
+
+			primaryFactory = RestJpaLifecycleProvider.open(PRIMARY_UNIT).getEntityManagerFactory();
+			replicaFactory = RestJpaLifecycleProvider.open(REPLICA_UNIT).getEntityManagerFactory();
+			JpaHelper.getServerSession(primaryFactory).getEventManager().addListener(new SessionEventAdapter() {
+
+				/**
+				 * Marks the current thread as committing a transaction.
+				 * @param event the session event
+				 */
+				@Override
+				public void preCommitTransaction (final SessionEvent event) {
+					COMMITTING.set(Boolean.TRUE);
+				}
+
+
+				/**
+				 * Records the commit position if the given connection is released because it's transaction has been committed.
+				 * @param event the session event
+				 */
+				@Override
+				public void preReleaseConnection (final SessionEvent event) {
+					if (COMMITTING.get() != null) recordCommitPosition((Accessor) event.getResult());
+				}
+
+
+				/**
+				 * Records the commit position if the committing connection is retained by the session, and hasn't been
+				 * released beforehand.
+				 * @param event the session event
+				 */
+				@Override
+				public void postCommitTransaction (final SessionEvent event) {
+					if (COMMITTING.get() != null) recordCommitPosition(((AbstractSession) event.getSession()).getAccessor());
+				}
+			});
+			prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				final Thread thread = new Thread(runnable, "replica-prober");
+				thread.setDaemon(true);
+				return thread;
+			});
+			prober.scheduleWithFixedDelay(ReplicaRouter::probe, 0, PROBE_PERIOD, TimeUnit.MILLISECONDS);
+		}
+	}
+
+
+	/**
+	 * Returns the entity manager to be used for read-only operations of the given requester within the current thread. This
+	 * is an entity manager of the replica persistence unit if the replica is available and has caught up with the requester's
+	 * last modification; otherwise the primary entity manager associated with the current thread is returned. Note that the
+	 * resulting entity manager must not be used for modifications.
+	 * @param requesterIdentity the requester identity, or zero for none
+	 * @return the entity manager
+	 * @throws IllegalStateException if there is no primary entity manager associated with the current thread
+	 */
+	static public EntityManager entityManager (final long requesterIdentity) throws IllegalStateException {
+		final EntityManager primaryManager = RestJpaLifecycleProvider.entityManager(PRIMARY_UNIT);
+		if (!replicaAvailable) return primaryManager;
+
+		try {
+			EntityManager replicaManager = REPLICA_MANAGERS.get();
+			if (replicaManager == null) REPLICA_MANAGERS.set(replicaManager = replicaFactory.createEntityManager());
+
+			final WriteToken writeToken = WRITE_TOKENS.get(requesterIdentity);
+			if (writeToken != null) {
+				if (writeToken.isExpired()) {
+					WRITE_TOKENS.remove(requesterIdentity, writeToken);
+				} else if (!hasApplied(replicaManager, writeToken.getPosition(), 0)) {
+					return primaryManager;
+				}
+			}
+
+			return replicaManager;
+		} catch (final PersistenceException exception) {
+			replicaAvailable = false;
+			Logger.getGlobal().log(Level.WARNING, "Replica bypassed: " + exception.getMessage(), exception);
+			return primaryManager;
+		}
+	}
+
+
+	/**
+	 * This operation is called by the JAX-RS runtime before an HTTP request is processed within the current thread. It closes
+	 * a stale replica entity manager still associated with the current thread, which prevents it's persistence context from
+	 * leaking into this request, and discards a commit position left behind.
+	 * @param requestContext the JAX-RS request context
+	 */
+	public void filter (final ContainerRequestContext requestContext) {
+		if (REPLICA_MANAGERS.get() != null) {
+			Logger.getGlobal().log(Level.WARNING, "Closing stale replica entity manager left behind within the current thread.");
+			closeReplicaManager();
+		}
+
+		COMMITTING.remove();
+		COMMIT_POSITIONS.remove();
+	}
+
+
+	/**
+	 * This operation is called by the JAX-RS runtime after an HTTP request has been processed, but before the entity stream has
+	 * been written. It records the position of the request's last commit for the requester after successful modifying
+	 * requests. It closes the replica entity manager associated with the current thread (if any) immediately if the
+	 * response has no entity, and otherwise arranges for it's closing once the entity stream has been written.
+	 * @param requestContext the JAX-RS request context
+	 * @param responseContext the JAX-RS response context
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 */
+	public void filter (final ContainerRequestContext requestContext, final ContainerResponseContext responseContext) throws NullPointerException {
+		final String position = COMMIT_POSITIONS.get();
+		COMMIT_POSITIONS.remove();
+
+		final String requesterIdentity = requestContext.getHeaderString(REQUESTER_IDENTITY);
+		if (position != null && !position.isEmpty() && requesterIdentity != null && !SAFE_METHODS.contains(requestContext.getMethod()) && responseContext.getStatusInfo().getFamily() == Family.SUCCESSFUL) {
+			try {
+				WRITE_TOKENS.put(Long.parseLong(requesterIdentity), new WriteToken(position));
+			} catch (final NumberFormatException exception) {
+				Logger.getGlobal().log(Level.WARNING, exception.getMessage(), exception);
+			}
+		}
+
+		if (REPLICA_MANAGERS.get() == null) return;
+		if (!responseContext.hasEntity()) {
+			closeReplicaManager();
+			return;
+		}
+
+		final FilterOutputStream triggerStream = new FilterOutputStream(responseContext.getEntityStream()) {
+
+			/**
+			 * {@inheritDoc}
+			 */
+			public void close () throws IOException {
+				try {
+					super.close();
+				} finally {
+					closeReplicaManager();
+				}
+			}
+		};
+		responseContext.setEntityStream(triggerStream);
+	}
+
+
+	/**
+	 * Closes the replica entity manager associated with the current thread, if any.
+	 */
+	static private void closeReplicaManager () {
+		final EntityManager replicaManager = REPLICA_MANAGERS.get();
+		REPLICA_MANAGERS.remove();
+		if (replicaManager != null && replicaManager.isOpen()) replicaManager.close();
+	}
+
+
+	/**
+	 * Records the position of the transaction just committed using the given connection accessor, i.e. the GTID the primary
+	 * has assigned to said transaction. Failures are logged instead of being propagated, as the commit has already succeeded;
+	 * the requester's subsequent reads are then protected by the lag detection alone.
+	 * @param accessor the connection accessor, or {@code null} for none
+	 */
+	static private void recordCommitPosition (final Accessor accessor) {
+		COMMITTING.remove();
+		final Connection connection = accessor == null ? null : accessor.getConnection();
+		if (connection == null) return;
+
+		try (Statement statement = connection.createStatement()) {
+			try (ResultSet resultSet = statement.executeQuery(COMMIT_POSITION_QUERY)) {
+				if (resultSet.next()) COMMIT_POSITIONS.set(resultSet.getString(1));
+			}
+		} catch (final SQLException exception) {
+			Logger.getGlobal().log(Level.WARNING, exception.getMessage(), exception);
+		}
+	}
+
+
+	/**
+	 * Probes if the replica is available and has applied the primary's current binlog position within the maximum lag.
+	 */
+	static private void probe () {
+		WRITE_TOKENS.values().removeIf(WriteToken::isExpired);
+
+		boolean available = false;
+		try {
+			final String position = primaryPosition();
+			if (!position.isEmpty()) {
+				final EntityManager replicaManager = replicaFactory.createEntityManager();
+				try {
+					available = hasApplied(replicaManager, position, MAX_LAG_SECONDS);
+				} finally {
+					replicaManager.close();
+				}
+			}
+		} catch (final PersistenceException exception) {
+			Logger.getGlobal().log(Level.FINE, exception.getMessage(), exception);
+		}
+
+		if (available != replicaAvailable) Logger.getGlobal().log(Level.INFO, "Replica database is {0}.", available ? "available" : "bypassed");
+		replicaAvailable = available;
+	}
+
+
+	/**
+	 * Returns the primary's current binlog position.
+	 * @return the GTID position, or an empty string if the primary has no binlog
+	 * @throws PersistenceException if there is a problem with the persistence layer
+	 */
+	static private String primaryPosition () throws PersistenceException {
+		final EntityManager primaryManager = primaryFactory.createEntityManager();
+		try {
+			final Object position = primaryManager.createNativeQuery(POSITION_QUERY).getSingleResult();
+			return position == null ? "" : position.toString();
+		} finally {
+			primaryManager.close();
+		}
+	}
+
+
+	/**
+	 * Returns whether or not the given replica entity manager's database has applied the given binlog position within the
+	 * given timeout.
+	 * @param replicaManager the replica entity manager
+	 * @param position the GTID position
+	 * @param timeout the timeout in seconds
+	 * @return {@code true} if the position has been applied, {@code false} otherwise
+	 * @throws PersistenceException if there is a problem with the persistence layer
+	 */
+	static private boolean hasApplied (final EntityManager replicaManager, final String position, final int timeout) throws PersistenceException {
+		final Object result = replicaManager.createNativeQuery(POSITION_WAIT_QUERY).setParameter(1, position).setParameter(2, timeout).getSingleResult();
+		return result instanceof Number && ((Number) result).intValue() == 0;
+	}
+
+
+
+	/**
+	 * Instances of this class record the primary's binlog position after a requester's modification.
+	 */
+	static private class WriteToken {
+		private final String position;
+		private final long timestamp;
+
+
+		/**
+		 * Initializes a new instance.
+		 * @param position the GTID position
+		 */
+		public WriteToken (final String position) {
+			this.position = position;
+			this.timestamp = System.currentTimeMillis();
+		}
+
+
+		/**
+		 * Returns the position.
+		 * @return the GTID position
+		 */
+		public String getPosition () {
+			return this.position;
+		}
+
+
+		/**
+		 * Returns whether or not this token has expired, in which case the lag detection alone suffices.
+		 * @return {@code true} if expired, {@code false} otherwise
+		 */
+		public boolean isExpired () {
+			return System.currentTimeMillis() - this.timestamp > WRITE_TOKEN_LIFETIME;
+		}
+	}
+}
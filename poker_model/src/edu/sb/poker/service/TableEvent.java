@@ -0,0 +1,132 @@
+package edu.sb.poker.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.json.JsonObject;
+
+
+/**
+ * Instances of this class model compact table state changes, which are pushed to the watchers of a table. Every event carries
+ * a sequence number unique within it's table, the identity of the entity changed, and a JSON object describing the change.
+ * The event is encoded once upon creation into an immutable server-sent event frame, which is shared among all watchers
+ * instead of being serialized for each of them.
+ */
+public class TableEvent {
+	static public enum Type {
+		/**
+		 * A player has taken or left a seat; data {@code {"person":…, "position":…}}, with a {@code null} position if the
+		 * seat has been left.
+		 */
+		SEAT,
+
+		/**
+		 * A hand's bet or status has changed; data {@code {"hand":…, "game":…, "bet":…, "active":…, "folded":…}}.
+		 */
+		BET,
+
+		/**
+		 * A game has been started or has changed it's state; data {@code {"game":…, "state":…}}.
+		 */
+		STATE,
+
+		/**
+		 * The watcher cannot be brought up to date using deltas, and must reload the table's state; data {@code {}}.
+		 */
+		RESYNC
+	}
+
+	private final long tableReference;
+	private final long sequence;
+	private final Type type;
+	private final long entityReference;
+	private final String data;
+	private final byte[] frame;
+
+
+	/**
+	 * Initializes a new instance.
+	 * @param tableReference the table identity
+	 * @param sequence the sequence number within the table
+	 * @param type the event type
+	 * @param entityReference the identity of the person, hand or game changed, or zero for none
+	 * @param data the event data
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 */
+	public TableEvent (final long tableReference, final long sequence, final Type type, final long entityReference, final JsonObject data) throws NullPointerException {
+		if (type == null) throw new NullPointerException();
+		this.tableReference = tableReference;
+		this.sequence = sequence;
+		this.type = type;
+		this.entityReference = entityReference;
+		this.data = data.toString();
+		this.frame = ("id: " + sequence + "\nevent: " + type.name().toLowerCase() + "\ndata: " + this.data + "\n\n").getBytes(UTF_8);
+	}
+
+
+	/**
+	 * Returns the table identity.
+	 * @return the table identity
+	 */
+	public long getTableReference () {
+		return this.tableReference;
+	}
+
+
+	/**
+	 * Returns the sequence number, which serves as SSE event ID.
+	 * @return the sequence number within the table
+	 */
+	public long getSequence () {
+		return this.sequence;
+	}
+
+
+	/**
+	 * Returns the event type, which serves as SSE event name in lower case.
+	 * @return the event type
+	 */
+	public Type getType () {
+		return this.type;
+	}
+
+
+	/**
+	 * Returns the identity of the entity changed, i.e. the person for seat events, the hand for bet events, and the game for
+	 * state events.
+	 * @return the entity identity, or zero for none
+	 */
+	public long getEntityReference () {
+		return this.entityReference;
+	}
+
+
+	/**
+	 * Returns the event data.
+	 * @return the JSON text describing the change
+	 */
+	public String getData () {
+		return this.data;
+	}
+
+
+	/**
+	 * Writes this event's server-sent event frame to the given byte sink.
+	 * @param byteSink the byte sink
+	 * @throws NullPointerException if the given argument is {@code null}
+	 * @throws IOException if there is an I/O related problem
+	 */
+	public void writeTo (final OutputStream byteSink) throws NullPointerException, IOException {
+		byteSink.write(this.frame);
+	}
+
+
+	/**
+	 * Returns a text representation of this event.
+	 * @return the text representation
+	 */
+	@Override
+	public String toString () {
+		return this.getClass().getSimpleName() + '@' + this.tableReference + '#' + this.sequence + ' ' + this.type + ' ' + this.data;
+	}
+}
@@ -0,0 +1,446 @@
+package edu.sb.poker.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import javax.persistence.PersistenceUnitUtil;
+import javax.ws.rs.core.StreamingOutput;
+import org.eclipse.persistence.internal.sessions.ObjectChangeSet;
+import org.eclipse.persistence.internal.sessions.ObjectReferenceChangeRecord;
+import org.eclipse.persistence.internal.sessions.UnitOfWorkChangeSet;
+import org.eclipse.persistence.internal.sessions.UnitOfWorkImpl;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+import org.eclipse.persistence.sessions.changesets.ChangeRecord;
+import edu.sb.poker.persistence.Game;
+import edu.sb.poker.persistence.Hand;
+import edu.sb.poker.persistence.Person;
+import edu.sb.poker.persistence.PokerTable;
+import edu.sb.poker.util.RestJpaLifecycleProvider;
+
+
+/**
+ * This singleton derives compact table events from committed units of work, and pushes them to the table's watchers as
+ * server-sent events. Seat changes are derived from persons, bet changes from hands, and state transitions from games. The
+ * last {@value #HISTORY_SIZE} events of every table are retained within a ring buffer, which allows watchers to resume after
+ * a reconnect using the {@code Last-Event-ID} header; if the events following the given ID are no longer available, a
+ * {@link TableEvent.Type#RESYNC} event is sent instead, telling the watcher to reload the table's state. Sequence numbers
+ * start with the microsecond time at which a table is first watched or changed, which makes IDs from before a server restart
+ * unresumable. Every event is encoded once into a frame shared by all watchers, and offered to each watcher's bounded queue
+ * without blocking; the queues are drained by the threads writing the event streams, which keeps commits from waiting on
+ * network I/O, and allows slow watchers to fall back to a resync without affecting others. As every watcher occupies a
+ * request thread, this design relies on the virtual thread executor for large numbers of watchers; asynchronous SSE event
+ * sinks are not an option, as the JDK HTTP server's container cannot suspend responses. Note that the session
+ * event listener is registered programmatically, as the persistence unit property {@code eclipselink.session-event-listener}
+ * is already occupied by the {@code CacheCoordinator}. The history doubles as change journal, from which the changes since
+ * a given version of a table's state are determined.
+ */
+public class TableEventHub {
+	static private final String PERSISTENCE_UNIT = "poker";
+	static private final int HISTORY_SIZE = 256;
+	static private final int QUEUE_CAPACITY = 64;
+	static private final int KEEP_ALIVE_TIMEOUT = 15;
+	static private final byte[] RETRY_FRAME = "retry: 2000\n\n".getBytes(UTF_8);
+	static private final byte[] KEEP_ALIVE_FRAME = ":\n\n".getBytes(UTF_8);
+	static private final int MAX_GAME_COUNT = 0x1000;
+	static private TableEventHub instance = null;
+
+	private final Map<Long,Channel> channels = new ConcurrentHashMap<>();
+	private final PersistenceUnitUtil persistenceUnitUtil;
+	private final Map<Long,Long> gameTableReferences = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+		static private final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry (final Map.Entry<Long,Long> eldest) {
+			return this.size() > MAX_GAME_COUNT;
+		}
+	});
+
+
+	/**
+	 * Returns the singleton instance, creating it and registering it's session event listener if this hasn't happened yet.
+	 * @return the table event hub
+	 * @throws PersistenceException if there is a problem configuring the persistence context
+	 */
+	static public synchronized TableEventHub instance () throws PersistenceException {
+		if (instance == null) {
+			final EntityManagerFactory entityManagerFactory = RestJpaLifecycleProvider.open(PERSISTENCE_UNIT).getEntityManagerFactory();
+			final TableEventHub hub = new TableEventHub(entityManagerFactory.getPersistenceUnitUtil());
+			JpaHelper.getServerSession(entityManagerFactory).getEventManager().addListener(new SessionEventAdapter() {
+
+				/**
+				 * Records the table events caused by the given committed unit of work.
+				 * @param event the session event
+				 */
+				@Override
+				public void postCommitUnitOfWork (final SessionEvent event) {
+					hub.record(event);
+				}
+			});
+			instance = hub;
+		}
+
+		return instance;
+	}
+
+
+	/**
+	 * Prevents external instantiation.
+	 * @param persistenceUnitUtil the persistence unit utility
+	 */
+	private TableEventHub (final PersistenceUnitUtil persistenceUnitUtil) {
+		this.persistenceUnitUtil = persistenceUnitUtil;
+	}
+
+
+	/**
+	 * Returns a new seed sequence number, i.e. the current time in microseconds.
+	 * @return the seed sequence number
+	 */
+	static private long seedSequence () {
+		return System.currentTimeMillis() * 1000;
+	}
+
+
+	/**
+	 * Returns a new event stream for the given table, which subscribes to the table's events once it is written, and writes
+	 * them as server-sent events until the watcher disconnects. If a last event ID is given, the events following it are
+	 * replayed first, or a {@link TableEvent.Type#RESYNC} event is sent if they are no longer available; otherwise, the
+	 * stream starts with the first event committed after this call.
+	 * @param tableReference the table identity
+	 * @param lastEventId the {@code Last-Event-ID} header value, or {@code null} for none
+	 * @return the event stream
+	 */
+	public StreamingOutput subscribe (final long tableReference, final String lastEventId) {
+		final Channel channel = this.channels.computeIfAbsent(tableReference, Channel::new);
+
+		long lastSequence;
+		try {
+			lastSequence = lastEventId == null ? channel.getSequence() : Long.parseLong(lastEventId.trim());
+		} catch (final NumberFormatException exception) {
+			lastSequence = Long.MIN_VALUE;
+		}
+
+		final long startSequence = lastSequence;
+		return byteSink -> {
+			final Subscriber subscriber = channel.subscribe(startSequence);
+			try {
+				subscriber.stream(byteSink);
+			} finally {
+				channel.unsubscribe(subscriber);
+			}
+		};
+	}
+
+
+	/**
+	 * Returns the sequence number of the given table's latest event, which serves as the version of the table's state. If
+	 * the table has neither been watched nor changed yet, the current seed sequence number is returned instead, which
+	 * precedes the sequence numbers of any channel created later on. Note that this method doesn't create a channel, which
+	 * keeps requests for arbitrary table identities from growing the channel map.
+	 * @param tableReference the table identity
+	 * @return the sequence number
+	 */
+	public long getSequence (final long tableReference) {
+		final Channel channel = this.channels.get(tableReference);
+		return channel == null ? seedSequence() : channel.getSequence();
+	}
+
+
+	/**
+	 * Returns the given table's events following the given sequence number, which allows the changes since a given version
+	 * of the table's state to be determined.
+	 * @param tableReference the table identity
+	 * @param sequence the sequence number of the last event known
+	 * @return the events in sequence order, or {@code null} if the given sequence number is unknown, the events following
+	 *         it are no longer retained, or the table has neither been watched nor changed yet
+	 */
+	public List<TableEvent> eventsSince (final long tableReference, final long sequence) {
+		final Channel channel = this.channels.get(tableReference);
+		return channel == null ? null : channel.eventsSince(sequence);
+	}
+
+
+	/**
+	 * Records the table events caused by the unit of work committed within the given session event. Failures are logged
+	 * instead of being propagated, as the commit has already succeeded.
+	 * @param event the session event
+	 */
+	private void record (final SessionEvent event) {
+		final UnitOfWorkImpl unitOfWork = (UnitOfWorkImpl) event.getSession();
+		final UnitOfWorkChangeSet changeSet = (UnitOfWorkChangeSet) unitOfWork.getUnitOfWorkChangeSet();
+		if (changeSet == null) return;
+
+		for (final ObjectChangeSet objectChangeSet : changeSet.getAllChangeSets().values()) {
+			final Object clone = objectChangeSet.getUnitOfWorkClone();
+			try {
+				if (clone instanceof Person) this.recordSeatChange(objectChangeSet, (Person) clone);
+				else if (clone instanceof Hand) this.recordBetChange(objectChangeSet, (Hand) clone);
+				else if (clone instanceof Game) this.recordStateChange(objectChangeSet, (Game) clone);
+			} catch (final RuntimeException exception) {
+				Logger.getGlobal().log(Level.WARNING, "failed to record table event for " + clone, exception);
+			}
+		}
+	}
+
+
+	/**
+	 * Records a seat event if the given person has changed it's table or position. If the person has left a table, a seat
+	 * event without position is recorded for said table.
+	 * @param objectChangeSet the person's change set
+	 * @param person the person
+	 */
+	private void recordSeatChange (final ObjectChangeSet objectChangeSet, final Person person) {
+		if (!objectChangeSet.hasChangeFor("table") && !objectChangeSet.hasChangeFor("position")) return;
+
+		final Long tableReference = person.getTableReference();
+		final ChangeRecord tableChangeRecord = objectChangeSet.getChangesForAttributeNamed("table");
+		if (tableChangeRecord instanceof ObjectReferenceChangeRecord) {
+			final Object previousTable = ((ObjectReferenceChangeRecord) tableChangeRecord).getOldValue();
+			if (previousTable instanceof PokerTable && (tableReference == null || ((PokerTable) previousTable).getIdentity() != tableReference))
+				this.publish(((PokerTable) previousTable).getIdentity(), TableEvent.Type.SEAT, person.getIdentity(), Json.createObjectBuilder().add("person", person.getIdentity()).addNull("position"));
+		}
+
+		if (tableReference != null) {
+			final JsonObjectBuilder data = Json.createObjectBuilder().add("person", person.getIdentity());
+			if (person.getPosition() == null) data.addNull("position");
+			else data.add("position", person.getPosition());
+			this.publish(tableReference, TableEvent.Type.SEAT, person.getIdentity(), data);
+		}
+	}
+
+
+	/**
+	 * Records a bet event if the given hand has changed it's bet or status. New hands are covered by their game's state
+	 * event. The hand's table is determined from the table references of the games recorded, or from the hand's game if the
+	 * latter has already been loaded; if neither is the case, no event is recorded, as loading the game is not an option
+	 * while the commit is being processed.
+	 * @param objectChangeSet the hand's change set
+	 * @param hand the hand
+	 */
+	private void recordBetChange (final ObjectChangeSet objectChangeSet, final Hand hand) {
+		if (objectChangeSet.isNew() || !(objectChangeSet.hasChangeFor("bet") || objectChangeSet.hasChangeFor("active") || objectChangeSet.hasChangeFor("folded"))) return;
+
+		final long gameReference = hand.getGameReference();
+		Long tableReference = this.gameTableReferences.get(gameReference);
+		if (tableReference == null && this.persistenceUnitUtil.isLoaded(hand, "game") && hand.getGame() != null) tableReference = hand.getGame().getTableReference();
+		if (tableReference == null || tableReference == 0) {
+			Logger.getGlobal().log(Level.FINE, "skipped bet event of hand {0}, as the table of game {1} is unknown", new Object[] { hand.getIdentity(), gameReference });
+			return;
+		}
+
+		this.publish(tableReference, TableEvent.Type.BET, hand.getIdentity(), Json.createObjectBuilder()
+			.add("hand", hand.getIdentity())
+			.add("game", gameReference)
+			.add("bet", hand.getBet())
+			.add("active", hand.getActive())
+			.add("folded", hand.getFolded()));
+	}
+
+
+	/**
+	 * Records a state event if the given game is new, or has changed it's state, and remembers the game's table reference
+	 * for the bet events of it's hands.
+	 * @param objectChangeSet the game's change set
+	 * @param game the game
+	 */
+	private void recordStateChange (final ObjectChangeSet objectChangeSet, final Game game) {
+		if (!objectChangeSet.isNew() && !objectChangeSet.hasChangeFor("state")) return;
+		if (game.getTableReference() == 0 || game.getState() == null) return;
+
+		this.gameTableReferences.put(game.getIdentity(), game.getTableReference());
+		this.publish(game.getTableReference(), TableEvent.Type.STATE, game.getIdentity(), Json.createObjectBuilder()
+			.add("game", game.getIdentity())
+			.add("state", game.getState().name()));
+	}
+
+
+	/**
+	 * Publishes a new event for the given table.
+	 * @param tableReference the table identity
+	 * @param type the event type
+	 * @param entityReference the identity of the entity changed
+	 * @param data the event data
+	 */
+	private void publish (final long tableReference, final TableEvent.Type type, final long entityReference, final JsonObjectBuilder data) {
+		this.channels.computeIfAbsent(tableReference, Channel::new).publish(type, entityReference, data.build());
+	}
+
+
+
+	/**
+	 * Instances of this static inner class manage the event history and the subscribers of a single table.
+	 */
+	static private class Channel {
+		private final long tableReference;
+		private final Deque<TableEvent> history = new ArrayDeque<>(HISTORY_SIZE);
+		private final Set<Subscriber> subscribers = new HashSet<>();
+		private long sequence = seedSequence();
+
+
+		/**
+		 * Initializes a new instance.
+		 * @param tableReference the table identity
+		 */
+		public Channel (final long tableReference) {
+			this.tableReference = tableReference;
+		}
+
+
+		/**
+		 * Returns the sequence number of the latest event.
+		 * @return the sequence number
+		 */
+		public synchronized long getSequence () {
+			return this.sequence;
+		}
+
+
+		/**
+		 * Appends a new event to the history, evicting the eldest one if necessary, and offers it to all subscribers. This
+		 * operation never blocks on subscribers, regardless of how far they lag behind.
+		 * @param type the event type
+		 * @param entityReference the identity of the entity changed
+		 * @param data the event data
+		 */
+		public synchronized void publish (final TableEvent.Type type, final long entityReference, final JsonObject data) {
+			final TableEvent event = new TableEvent(this.tableReference, ++this.sequence, type, entityReference, data);
+			if (this.history.size() == HISTORY_SIZE) this.history.removeFirst();
+			this.history.addLast(event);
+
+			for (final Subscriber subscriber : this.subscribers)
+				subscriber.offer(event);
+		}
+
+
+		/**
+		 * Returns the events following the given sequence number.
+		 * @param lastSequence the sequence number of the last event known
+		 * @return the events, or {@code null} if these are no longer available
+		 */
+		public synchronized List<TableEvent> eventsSince (final long lastSequence) {
+			final long oldestSequence = this.history.isEmpty() ? this.sequence + 1 : this.history.getFirst().getSequence();
+			if (lastSequence < oldestSequence - 1 || lastSequence > this.sequence) return null;
+
+			return this.history.stream().filter(event -> event.getSequence() > lastSequence).collect(Collectors.toList());
+		}
+
+
+		/**
+		 * Returns a new subscriber, which has been offered the events following the given sequence number, or a
+		 * {@link TableEvent.Type#RESYNC} event if these are no longer available.
+		 * @param lastSequence the sequence number of the last event received
+		 * @return the subscriber created
+		 */
+		public synchronized Subscriber subscribe (final long lastSequence) {
+			final Subscriber subscriber = new Subscriber(this.tableReference);
+			final List<TableEvent> missedEvents = this.eventsSince(lastSequence);
+			if (missedEvents == null) subscriber.resync(this.sequence);
+			else missedEvents.forEach(subscriber::offer);
+
+			this.subscribers.add(subscriber);
+			return subscriber;
+		}
+
+
+		/**
+		 * Removes the given subscriber.
+		 * @param subscriber the subscriber
+		 */
+		public synchronized void unsubscribe (final Subscriber subscriber) {
+			this.subscribers.remove(subscriber);
+		}
+	}
+
+
+
+	/**
+	 * Instances of this static inner class model subscribers, i.e. watchers of a table. Every subscriber owns a bounded event
+	 * queue, which is drained by the thread writing it's event stream. If a subscriber consumes events slower than they are
+	 * published, it's queue overflows; the queued events are then dropped in favor of a single
+	 * {@link TableEvent.Type#RESYNC} event, instead of buffering an unbounded backlog.
+	 */
+	static private class Subscriber {
+		private final long tableReference;
+		private final BlockingQueue<TableEvent> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+
+		/**
+		 * Initializes a new instance.
+		 * @param tableReference the table identity
+		 */
+		public Subscriber (final long tableReference) {
+			this.tableReference = tableReference;
+		}
+
+
+		/**
+		 * Offers the given event to this subscriber, replacing it's queued events with a {@link TableEvent.Type#RESYNC}
+		 * event if it's queue is full.
+		 * @param event the event
+		 */
+		public void offer (final TableEvent event) {
+			if (!this.queue.offer(event)) this.resync(event.getSequence());
+		}
+
+
+		/**
+		 * Replaces this subscriber's queued events with a {@link TableEvent.Type#RESYNC} event.
+		 * @param sequence the sequence number of the latest event
+		 */
+		public void resync (final long sequence) {
+			this.queue.clear();
+			this.queue.offer(new TableEvent(this.tableReference, sequence, TableEvent.Type.RESYNC, 0, JsonObject.EMPTY_JSON_OBJECT));
+		}
+
+
+		/**
+		 * Writes this subscriber's events to the given byte sink until the watcher disconnects, flushing after each batch of
+		 * queued events. A comment frame is written whenever there are no events for a while, which keeps intermediaries from
+		 * closing the connection, and detects disconnected watchers.
+		 * @param byteSink the byte sink
+		 */
+		public void stream (final OutputStream byteSink) {
+			try {
+				byteSink.write(RETRY_FRAME);
+				byteSink.flush();
+
+				while (true) {
+					final TableEvent event = this.queue.poll(KEEP_ALIVE_TIMEOUT, TimeUnit.SECONDS);
+					if (event == null) {
+						byteSink.write(KEEP_ALIVE_FRAME);
+					} else {
+						event.writeTo(byteSink);
+						for (TableEvent nextEvent = this.queue.poll(); nextEvent != null; nextEvent = this.queue.poll())
+							nextEvent.writeTo(byteSink);
+					}
+					byteSink.flush();
+				}
+			} catch (final IOException exception) {
+				// treat as disconnect because the watcher has closed the connection
+			} catch (final InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -1,27 +1,35 @@
 package edu.sb.poker.service;
 
 import static edu.sb.poker.service.BasicAuthenticationFilter.REQUESTER_IDENTITY;
+import static edu.sb.poker.service.BinaryEntityProvider.APPLICATION_POKER;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+import static javax.ws.rs.core.MediaType.SERVER_SENT_EVENTS;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
 import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 import static javax.ws.rs.core.Response.Status.CONFLICT;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static edu.sb.poker.util.ContinuationTokens.CONTINUATION_TOKEN;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
-import javax.persistence.Cache;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.RollbackException;
 import javax.persistence.Table;
+import javax.persistence.TypedQuery;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
@@ -31,48 +39,79 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import org.eclipse.persistence.annotations.BatchFetchType;
+import org.eclipse.persistence.config.QueryHints;
 
 import edu.sb.poker.persistence.Document;
 import edu.sb.poker.persistence.Game;
 import edu.sb.poker.persistence.Hand;
 import edu.sb.poker.persistence.Person;
 import edu.sb.poker.persistence.PokerTable;
+import edu.sb.poker.util.ContinuationTokens;
 import edu.sb.poker.util.RestJpaLifecycleProvider;
+import edu.sb.poker.util.RestTransactions;
 
 @Path("tables")
 public class TableService {
+	static private final int DEFAULT_RESULT_LIMIT = 100;
+	static private final int MAX_RESULT_LIMIT = 1000;
+
 	@GET
 	@Produces({
-			APPLICATION_JSON, APPLICATION_XML
+			APPLICATION_JSON, APPLICATION_XML, APPLICATION_POKER
 	})
-	public List<PokerTable> getTables(@QueryParam("alias") String alias, @QueryParam("avatar") Document avatar,
-			@QueryParam("resultOffset") int resultOffset, @QueryParam("resultLimit") int resultLimit) {
+	public Response getTables(@HeaderParam(REQUESTER_IDENTITY) @Positive final long requesterIdentity,
+			@QueryParam("alias") String alias, @QueryParam("avatarReference") long avatarReference,
+			@QueryParam("continuation") String continuation, @QueryParam("resultLimit") int resultLimit) {
 
-		final EntityManager eM = RestJpaLifecycleProvider.entityManager("poker");
+		final EntityManager eM = ReplicaRouter.entityManager(requesterIdentity);
+		final int pageSize = resultLimit <= 0 ? DEFAULT_RESULT_LIMIT : Math.min(resultLimit, MAX_RESULT_LIMIT);
 
-		String queryString = "SELECT id from PokerTable as p WHERE" + "(:alias is null or p.alias = :alias)"
-				+ "AND (:avatarReference is null or p.avatarReference = :avatarReference)";
+		String queryString = "SELECT p FROM PokerTable AS p WHERE (:alias is null or p.alias = :alias)"
+				+ " AND (:avatarReference = 0 or p.avatar.identity = :avatarReference)";
 
-		if (resultOffset != 0) {
-			queryString += " Offset " + resultOffset;
+		// keyset pagination: continue after the alias of the previous page's last table, using the unique alias index
+		final String[] cursor;
+		try {
+			cursor = continuation == null ? null : ContinuationTokens.decode(continuation, 1);
+		} catch (final IllegalArgumentException exception) {
+			throw new ClientErrorException(BAD_REQUEST);
 		}
 
-		if (resultOffset != 0) {
-			queryString += " Offset " + resultOffset;
+		if (cursor != null) {
+			queryString += " AND p.alias > :cursorAlias";
 		}
 
-		List<PokerTable> tableProxies = eM.createQuery(queryString, PokerTable.class).setParameter("alias", alias)
-				.setParameter("avatarReference", avatar.getIdentity()).getResultList();
-		List<PokerTable> table = new ArrayList<PokerTable>();
-		for (PokerTable t : tableProxies) {
-			table.add(eM.find(PokerTable.class, t.getIdentity()));
+		queryString += " ORDER BY p.alias";
+
+		// the representation's players and games are fetched for the whole page in one additional IN query each, instead of once per table
+		final TypedQuery<PokerTable> query = eM.createQuery(queryString, PokerTable.class).setParameter("alias", alias)
+				.setParameter("avatarReference", avatarReference).setMaxResults(pageSize + 1)
+				.setHint(QueryHints.JPA_LOAD_GRAPH, eM.getEntityGraph(PokerTable.REPRESENTATION))
+				.setHint(QueryHints.BATCH, "p.players").setHint(QueryHints.BATCH, "p.games").setHint(QueryHints.BATCH_TYPE, BatchFetchType.IN);
+		if (cursor != null) {
+			query.setParameter("cursorAlias", cursor[0]);
 		}
 
-		return table.stream().sorted(Comparator.comparing(t -> ((PokerTable) t).getAlias()))
-				.collect(Collectors.toList());
+		final List<PokerTable> results = query.getResultList();
+		final List<PokerTable> tables = new ArrayList<PokerTable>(results.subList(0, Math.min(pageSize, results.size())));
+
+		final Response.ResponseBuilder response = Response.ok(new GenericEntity<List<PokerTable>>(tables) {});
+		if (results.size() > pageSize) {
+			response.header(CONTINUATION_TOKEN, ContinuationTokens.encode(tables.get(tables.size() - 1).getAlias()));
+		}
+
+		return response.build();
 	}
 
 	@POST
+	@Consumes({
+			APPLICATION_JSON, APPLICATION_XML, APPLICATION_POKER
+	})
 	@Produces(TEXT_PLAIN)
 	public long postTable(@HeaderParam(REQUESTER_IDENTITY) @Positive final long requesterIdentity,
 			@NotNull @NotEmpty final PokerTable input) {
@@ -110,11 +149,14 @@ public class TableService {
 
 	@GET
 	@Path("{id}")
+	@Produces({
+			APPLICATION_JSON, APPLICATION_XML, APPLICATION_POKER
+	})
 	public PokerTable getPersonById(@HeaderParam(REQUESTER_IDENTITY) @Positive final long requesterIdentity,
 			@PathParam("id") @Positive final long identity) {
 		final EntityManager messengerManager = RestJpaLifecycleProvider.entityManager("poker");
 
-		PokerTable table = messengerManager.find(PokerTable.class, identity);
+		PokerTable table = messengerManager.find(PokerTable.class, identity, Map.of(QueryHints.JPA_LOAD_GRAPH, messengerManager.getEntityGraph(PokerTable.REPRESENTATION)));
 		if (table == null) {
 			throw new ClientErrorException(NOT_FOUND);
 		}
@@ -122,6 +164,138 @@ public class TableService {
 		return table;
 	}
 
+	/**
+	 * Returns the given table's state, aggregating the table, it's seated players, it's current game, and the latter's
+	 * hands including the cards visible to the requester. If a version is given, only the changes since said version are
+	 * returned, as determined from the change journal of the {@link TableEventHub}; if the journal no longer covers the
+	 * given version, the complete state is returned instead. The state is assembled using a fixed number of queries,
+	 * regardless of the number of players and hands.
+	 */
+	@GET
+	@Path("{id}/state")
+	@Produces({
+			APPLICATION_JSON, APPLICATION_XML
+	})
+	public TableState getTableState(@HeaderParam(REQUESTER_IDENTITY) @Positive final long requesterIdentity,
+			@PathParam("id") @Positive final long identity, @QueryParam("since") final Long since) {
+		final EntityManager pokerManager = RestJpaLifecycleProvider.entityManager("poker");
+		final Person requester = pokerManager.find(Person.class, requesterIdentity);
+		if (pokerManager.find(PokerTable.class, identity) == null) {
+			throw new ClientErrorException(NOT_FOUND);
+		}
+
+		// determine the version before querying, in order for concurrent changes to be part of the next delta
+		final TableEventHub eventHub = TableEventHub.instance();
+		final long version = eventHub.getSequence(identity);
+		final List<TableEvent> events = since == null ? null : eventHub.eventsSince(identity, since);
+		if (events == null) {
+			return this.getCompleteTableState(pokerManager, requester, identity, version);
+		}
+
+		final Set<Long> personReferences = new TreeSet<>(), handReferences = new TreeSet<>(), gameReferences = new TreeSet<>();
+		for (final TableEvent event : events) {
+			switch (event.getType()) {
+				case SEAT: personReferences.add(event.getEntityReference()); break;
+				case BET: handReferences.add(event.getEntityReference()); break;
+				case STATE: gameReferences.add(event.getEntityReference()); break;
+				default: break;
+			}
+		}
+
+		PokerTable table = null;
+		List<Person> players = Collections.emptyList();
+		long[] departedPlayerReferences = null;
+		if (!personReferences.isEmpty()) {
+			table = pokerManager.find(PokerTable.class, identity, Map.of(QueryHints.JPA_LOAD_GRAPH, pokerManager.getEntityGraph(PokerTable.REPRESENTATION)));
+			players = pokerManager.createQuery("SELECT p FROM Person AS p WHERE p.identity IN :personIdentities AND p.table.identity = :tableIdentity ORDER BY p.position", Person.class)
+					.setParameter("personIdentities", personReferences).setParameter("tableIdentity", identity)
+					.setHint(QueryHints.BATCH, "p.phones").setHint(QueryHints.BATCH_TYPE, BatchFetchType.IN)
+					.getResultList();
+			final Set<Long> seatedReferences = players.stream().map(Person::getIdentity).collect(Collectors.toSet());
+			departedPlayerReferences = personReferences.stream().filter(reference -> !seatedReferences.contains(reference)).mapToLong(Long::longValue).toArray();
+		}
+
+		// a game state transition may reveal cards, and a new game comes with new hands, therefore include all of it's hands
+		final Game game = gameReferences.isEmpty() ? null : pokerManager.find(Game.class, Collections.max(gameReferences));
+		String queryString = "SELECT DISTINCT h FROM Hand AS h WHERE ";
+		if (!handReferences.isEmpty()) queryString += "h.identity IN :handIdentities";
+		if (!handReferences.isEmpty() && game != null) queryString += " OR ";
+		if (game != null) queryString += "h.game = :game";
+		queryString += " ORDER BY h.identity";
+
+		List<TableState.HandState> handStates = Collections.emptyList();
+		if (!handReferences.isEmpty() || game != null) {
+			final TypedQuery<Hand> query = pokerManager.createQuery(queryString, Hand.class);
+			if (!handReferences.isEmpty()) query.setParameter("handIdentities", handReferences);
+			if (game != null) query.setParameter("game", game);
+			handStates = handStates(requester, query);
+			if (game != null) game.getHands().size();
+		}
+
+		return new TableState(version, since, table, players, game, handStates, departedPlayerReferences);
+	}
+
+	/**
+	 * Returns the complete state of the given table.
+	 */
+	private TableState getCompleteTableState(final EntityManager pokerManager, final Person requester, final long identity, final long version) {
+		// fetch the players before the table, in order for the table's players to share their batch fetched phones
+		final List<Person> players = pokerManager.createQuery("SELECT p FROM Person AS p WHERE p.table.identity = :tableIdentity ORDER BY p.position", Person.class)
+				.setParameter("tableIdentity", identity)
+				.setHint(QueryHints.BATCH, "p.phones").setHint(QueryHints.BATCH_TYPE, BatchFetchType.IN)
+				.getResultList();
+		final PokerTable table = pokerManager.find(PokerTable.class, identity, Map.of(QueryHints.JPA_LOAD_GRAPH, pokerManager.getEntityGraph(PokerTable.REPRESENTATION)));
+		if (table == null) {
+			throw new ClientErrorException(NOT_FOUND);
+		}
+
+		final Game game = table.getGames().isEmpty() ? null : Collections.max(table.getGames());
+		List<TableState.HandState> handStates = Collections.emptyList();
+		if (game != null) {
+			final TypedQuery<Hand> query = pokerManager.createQuery("SELECT DISTINCT h FROM Hand AS h WHERE h.game = :game ORDER BY h.identity", Hand.class)
+					.setParameter("game", game);
+			handStates = handStates(requester, query);
+			game.getHands().size();
+		}
+
+		return new TableState(version, null, table, players, game, handStates, null);
+	}
+
+	/**
+	 * Returns the states of the hands selected by the given query, which are fetched together with their cards and players
+	 * in one query, before their game's hand references are instantiated by the caller.
+	 */
+	static private List<TableState.HandState> handStates(final Person requester, final TypedQuery<Hand> query) {
+		final List<Hand> hands = query.setHint(QueryHints.LEFT_FETCH, "h.cards").setHint(QueryHints.LEFT_FETCH, "h.player").getResultList();
+
+		final List<TableState.HandState> handStates = new ArrayList<>();
+		for (Hand hand : hands) {
+			handStates.add(new TableState.HandState(hand, HandService.isCardsVisible(requester, hand) ? hand.getCards() : null));
+		}
+		return handStates;
+	}
+
+	/**
+	 * Streams the given table's state changes (seat changes, bets and game state transitions) as server-sent events, once
+	 * they have been committed. Watchers may resume after a reconnect using the {@code Last-Event-ID} header, as long as the
+	 * events missed are still retained by the {@link TableEventHub}. The stream occupies the request thread until the watcher
+	 * disconnects, while the request's entity manager is released before the stream starts, so watchers don't hold a
+	 * database transaction while connected.
+	 */
+	@GET
+	@Path("{id}/events")
+	@Produces(SERVER_SENT_EVENTS)
+	public StreamingOutput getTableEvents(@HeaderParam(REQUESTER_IDENTITY) @Positive final long requesterIdentity,
+			@PathParam("id") @Positive final long identity, @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) final String lastEventId) {
+		final EntityManager pokerManager = RestJpaLifecycleProvider.entityManager("poker");
+		if (pokerManager.find(PokerTable.class, identity) == null) {
+			throw new ClientErrorException(NOT_FOUND);
+		}
+
+		RestJpaLifecycleProvider.release("poker");
+		return TableEventHub.instance().subscribe(identity, lastEventId);
+	}
+
 	@PUT
 	@Path("{id}/players/{pos}")
 	@Produces(TEXT_PLAIN)
@@ -129,40 +303,36 @@ public class TableService {
 			@PathParam("id") @Positive final long identity, @PathParam("pos") @Positive final Byte position) {
 
 		final EntityManager pokerManager = RestJpaLifecycleProvider.entityManager("poker");
-		final Person requester = pokerManager.find(Person.class, requesterIdentity);
-		final PokerTable pokerTable = pokerManager.find(PokerTable.class, identity);
-		// if requester is an admin
-		if (requester.getGroup() == Person.Group.ADMIN || requester.getPoker().getIdentity() == pokerTable.getIdentity()
-				|| pokerTable.getPlayers().contains(requester)) {
-			throw new ClientErrorException(BAD_REQUEST);
-		}
 
-		// prft fr jeden spieler ob die position schon belegt wurde.
-		for (Person p : pokerTable.getPlayers()) {
-			if (p.getPosition() == position) {
+		// concurrent seat claims on the same table conflict on the table's version, and are retried automatically
+		final Person requester = RestTransactions.commit(pokerManager, () -> {
+			final Person person = pokerManager.find(Person.class, requesterIdentity);
+			final PokerTable pokerTable = pokerManager.find(PokerTable.class, identity);
+			if (pokerTable == null) throw new ClientErrorException(NOT_FOUND);
+			pokerManager.lock(pokerTable, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+
+			// if requester is an admin
+			if (person.getGroup() == Person.Group.ADMIN || (person.getPokerTable() != null && person.getPokerTable().getIdentity() == pokerTable.getIdentity())
+					|| pokerTable.getPlayers().contains(person)) {
 				throw new ClientErrorException(BAD_REQUEST);
 			}
-		}
 
-		pokerTable.getPlayers().add(requester);
-
-		final String DOCUMENT_QUERY = "UPDATE Person "
-				+ "SET position = :position WHERE personIdentity = :personIdentity";
-		Person updatedRequester = pokerManager.createQuery(DOCUMENT_QUERY, Person.class)
-				.setParameter("personIdentity", requester.getIdentity()).getSingleResult();
+			// prft fr jeden spieler ob die position schon belegt wurde.
+			for (Person p : pokerTable.getPlayers()) {
+				if (position.equals(p.getPosition())) {
+					throw new ClientErrorException(BAD_REQUEST);
+				}
+			}
 
-		try {
-			pokerManager.getTransaction().commit();
-		} catch (final RollbackException exception) {
-			throw new ClientErrorException(CONFLICT);
-		} finally {
-			pokerManager.getTransaction().begin();
-		}
+			pokerTable.getPlayers().add(person);
 
-		Cache cache = pokerManager.getEntityManagerFactory().getCache();
-		(cache).evict(updatedRequester.getClass(), updatedRequester.getIdentity());
+			// managed changes are merged into the 2nd level cache on commit, the table's players are invalidated by the CacheCoordinator
+			person.setPokerTable(pokerTable);
+			person.setPosition(position);
+			return person;
+		});
 
-		return updatedRequester.getPosition().toString();
+		return requester.getPosition().toString();
 	}
 
 	@DELETE
@@ -172,36 +342,34 @@ public class TableService {
 			@PathParam("id") @Positive final long identity, @PathParam("pos") @Positive final Byte position) {
 
 		final EntityManager pokerManager = RestJpaLifecycleProvider.entityManager("poker");
-		final Person requester = pokerManager.find(Person.class, requesterIdentity);
-		final PokerTable pokerTable = pokerManager.find(PokerTable.class, identity);
-		final Person personToBeRemoved = pokerManager
-				.createQuery("SELECT * FROM PERSON WHERE position = :position", Person.class)
-				.setParameter("position", position).getSingleResult();
 
-		// the poker spot is already empty
-		if (personToBeRemoved == null) {
-			throw new ClientErrorException(BAD_REQUEST);
+		RestTransactions.commit(pokerManager, () -> {
+			final Person requester = pokerManager.find(Person.class, requesterIdentity);
+			final PokerTable pokerTable = pokerManager.find(PokerTable.class, identity);
+			if (pokerTable == null) throw new ClientErrorException(NOT_FOUND);
 
-		}
+			final List<Person> seatedPersons = pokerManager
+					.createQuery("SELECT p FROM Person AS p WHERE p.table.identity = :tableIdentity AND p.position = :position", Person.class)
+					.setParameter("tableIdentity", identity)
+					.setParameter("position", position)
+					.getResultList();
 
-		if (personToBeRemoved.getIdentity() != requester.getIdentity() && requester.getGroup() != Person.Group.ADMIN) {
-			throw new ClientErrorException(FORBIDDEN);
-		}
-
-		final String DOCUMENT_QUERY = "UPDATE Person " + "SET position = null WHERE personIdentity = :personIdentity";
-		Person updatedRequester = pokerManager.createQuery(DOCUMENT_QUERY, Person.class)
-				.setParameter("personIdentity", personToBeRemoved.getIdentity()).getSingleResult();
+			// the poker spot is already empty
+			if (seatedPersons.isEmpty()) {
+				throw new ClientErrorException(BAD_REQUEST);
+			}
 
-		try {
-			pokerManager.getTransaction().commit();
-		} catch (final RollbackException exception) {
-			throw new ClientErrorException(CONFLICT);
-		} finally {
-			pokerManager.getTransaction().begin();
-		}
+			final Person personToBeRemoved = seatedPersons.get(0);
+			if (personToBeRemoved.getIdentity() != requester.getIdentity() && requester.getGroup() != Person.Group.ADMIN) {
+				throw new ClientErrorException(FORBIDDEN);
+			}
 
-		Cache cache = pokerManager.getEntityManagerFactory().getCache();
-		(cache).evict(updatedRequester.getClass(), updatedRequester.getIdentity());
+			pokerManager.lock(pokerTable, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+			pokerTable.getPlayers().remove(personToBeRemoved);
+			personToBeRemoved.setPokerTable(null);
+			personToBeRemoved.setPosition(null);
+			return personToBeRemoved;
+		});
 
 		return position.toString();
 	}
@@ -212,7 +380,12 @@ public class TableService {
 	public String addNewGame(@PathParam("id") @Positive final long identity) {
 		final EntityManager pokerManager = RestJpaLifecycleProvider.entityManager("poker");
 		final PokerTable pokerTable = pokerManager.find(PokerTable.class, identity);
+		if (pokerTable == null) {
+			throw new ClientErrorException(NOT_FOUND);
+		}
 
+		// the table's game references change, which must be reflected in it's version and therefore it's entity tag
+		pokerManager.lock(pokerTable, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
 		if (pokerTable.getPlayers().size() < 2) {
 			throw new ClientErrorException(BAD_REQUEST);
 		}
@@ -0,0 +1,195 @@
+package edu.sb.poker.service;
+
+import static javax.xml.bind.annotation.XmlAccessType.NONE;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import javax.json.bind.annotation.JsonbProperty;
+import javax.json.bind.annotation.JsonbVisibility;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+import edu.sb.poker.persistence.Card;
+import edu.sb.poker.persistence.Game;
+import edu.sb.poker.persistence.Hand;
+import edu.sb.poker.persistence.Person;
+import edu.sb.poker.persistence.PokerTable;
+import edu.sb.poker.util.JsonProtectedPropertyStrategy;
+
+
+/**
+ * Instances of this class aggregate everything required to render a table in a single representation: The table itself, it's
+ * seated players, it's current game, and the hands of said game, each with the cards visible to the requester. Hidden cards
+ * are omitted, which allows clients to distinguish them from cards not yet dealt. Every state carries a version, which
+ * allows clients to request a delta instead of the complete state later on. A delta (marked by the version it is based on)
+ * contains only the entities changed since, i.e. the table if it's seats have changed, the players who have taken or
+ * changed seats, the references of the players who have left, the game if it has been started or changed it's state
+ * (together with all it's hands), and the hands whose bets have changed. Clients merge a delta into their state by
+ * replacing entities with the same identity and a lower entity version.
+ */
+@JsonbVisibility(JsonProtectedPropertyStrategy.class)
+@XmlAccessorType(NONE)
+@XmlType @XmlRootElement
+public class TableState {
+	private long version;
+	private Long baseVersion;
+	private PokerTable table;
+	private List<Person> players;
+	private Game game;
+	private List<HandState> hands;
+	private long[] departedPlayerReferences;
+
+
+	/**
+	 * Initializes a new instance. This constructor is provided solely for marshaling purposes.
+	 */
+	protected TableState () {
+		this(0, null, null, Collections.emptyList(), null, Collections.emptyList(), null);
+	}
+
+
+	/**
+	 * Initializes a new instance.
+	 * @param version the version
+	 * @param baseVersion the version a delta is based on, or {@code null} for a complete state
+	 * @param table the table, or {@code null} if it is unchanged within a delta
+	 * @param players the seated players, or the players whose seats have changed within a delta
+	 * @param game the current game, or {@code null} for none, or if it is unchanged within a delta
+	 * @param hands the hands of the current game, or the hands changed within a delta
+	 * @param departedPlayerReferences the identities of the players who have left the table within a delta, or {@code null}
+	 *        for none
+	 */
+	public TableState (final long version, final Long baseVersion, final PokerTable table, final List<Person> players, final Game game, final List<HandState> hands, final long[] departedPlayerReferences) {
+		this.version = version;
+		this.baseVersion = baseVersion;
+		this.table = table;
+		this.players = players;
+		this.game = game;
+		this.hands = hands;
+		this.departedPlayerReferences = departedPlayerReferences;
+	}
+
+
+	/**
+	 * Returns the version, which may be passed to request a delta later on.
+	 * @return the version
+	 */
+	@JsonbProperty @XmlAttribute
+	public long getVersion () {
+		return this.version;
+	}
+
+
+	/**
+	 * Returns the version this delta is based on.
+	 * @return the base version, or {@code null} for a complete state
+	 */
+	@JsonbProperty @XmlAttribute
+	public Long getBaseVersion () {
+		return this.baseVersion;
+	}
+
+
+	/**
+	 * Returns the table.
+	 * @return the table, or {@code null} if it is unchanged within a delta
+	 */
+	@JsonbProperty @XmlElement
+	public PokerTable getTable () {
+		return this.table;
+	}
+
+
+	/**
+	 * Returns the seated players, or the players whose seats have changed within a delta.
+	 * @return the players, ordered by position
+	 */
+	@JsonbProperty @XmlElement
+	public List<Person> getPlayers () {
+		return this.players;
+	}
+
+
+	/**
+	 * Returns the current game.
+	 * @return the game, or {@code null} for none, or if it is unchanged within a delta
+	 */
+	@JsonbProperty @XmlElement
+	public Game getGame () {
+		return this.game;
+	}
+
+
+	/**
+	 * Returns the hands of the current game, or the hands changed within a delta.
+	 * @return the hands, including the deck
+	 */
+	@JsonbProperty @XmlElement
+	public List<HandState> getHands () {
+		return this.hands;
+	}
+
+
+	/**
+	 * Returns the identities of the players who have left the table within a delta.
+	 * @return the player identities, or {@code null} for none
+	 */
+	@JsonbProperty @XmlElement
+	public long[] getDepartedPlayerReferences () {
+		return this.departedPlayerReferences;
+	}
+
+
+
+	/**
+	 * Instances of this static inner class combine a hand with it's cards, if these are visible to the requester.
+	 */
+	@JsonbVisibility(JsonProtectedPropertyStrategy.class)
+	@XmlAccessorType(NONE)
+	@XmlType
+	static public class HandState {
+		private Hand hand;
+		private Set<Card> cards;
+
+
+		/**
+		 * Initializes a new instance. This constructor is provided solely for marshaling purposes.
+		 */
+		protected HandState () {
+			this(null, null);
+		}
+
+
+		/**
+		 * Initializes a new instance.
+		 * @param hand the hand
+		 * @param cards the hand's cards, or {@code null} if they are hidden from the requester
+		 */
+		public HandState (final Hand hand, final Set<Card> cards) {
+			this.hand = hand;
+			this.cards = cards;
+		}
+
+
+		/**
+		 * Returns the hand.
+		 * @return the hand
+		 */
+		@JsonbProperty @XmlElement
+		public Hand getHand () {
+			return this.hand;
+		}
+
+
+		/**
+		 * Returns the hand's cards.
+		 * @return the cards, or {@code null} if they are hidden from the requester
+		 */
+		@JsonbProperty @XmlElement
+		public Set<Card> getCards () {
+			return this.cards;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package edu.sb.poker.util;
+
+import org.eclipse.persistence.internal.sessions.ObjectChangeSet;
+import org.eclipse.persistence.internal.sessions.ObjectReferenceChangeRecord;
+import org.eclipse.persistence.internal.sessions.UnitOfWorkChangeSet;
+import org.eclipse.persistence.internal.sessions.UnitOfWorkImpl;
+import org.eclipse.persistence.mappings.DatabaseMapping;
+import org.eclipse.persistence.sessions.IdentityMapAccessor;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+import org.eclipse.persistence.sessions.changesets.ChangeRecord;
+
+
+/**
+ * <i>EclipseLink</i> session event listener that keeps the shared (2nd level) cache coherent once a unit of work has been
+ * committed. Changes to the owning side of a relationship (like a person changing it's table) are merged into the cache by
+ * <i>EclipseLink</i> itself, but the inverse sides (like said table's players) are not maintained, and would therefore be
+ * served stale from the cache. This listener invalidates the previous and the current target of every changed reference
+ * once the commit succeeded, plus all targets referenced by deleted entities, causing them to be reloaded upon their next
+ * access. This removes the need for services to evict cache entries manually after modifications. The listener is registered
+ * using the persistence unit property {@code eclipselink.session-event-listener}.
+ */
+public class CacheCoordinator extends SessionEventAdapter {
+
+	/**
+	 * Invalidates the shared cache entries of all entities whose inverse relationships may have been affected by the
+	 * committed unit of work.
+	 * @param event the session event
+	 * @throws NullPointerException if the given argument is {@code null}
+	 */
+	@Override
+	public void postCommitUnitOfWork (final SessionEvent event) throws NullPointerException {
+		final UnitOfWorkImpl unitOfWork = (UnitOfWorkImpl) event.getSession();
+		final UnitOfWorkChangeSet changeSet = (UnitOfWorkChangeSet) unitOfWork.getUnitOfWorkChangeSet();
+		if (changeSet == null) return;
+
+		final IdentityMapAccessor cache = unitOfWork.getParent().getIdentityMapAccessor();
+		for (final ObjectChangeSet objectChangeSet : changeSet.getAllChangeSets().values()) {
+			for (final ChangeRecord changeRecord : objectChangeSet.getChanges()) {
+				if (!(changeRecord instanceof ObjectReferenceChangeRecord)) continue;
+
+				final ObjectReferenceChangeRecord referenceChangeRecord = (ObjectReferenceChangeRecord) changeRecord;
+				final ObjectChangeSet newTargetChangeSet = (ObjectChangeSet) referenceChangeRecord.getNewValue();
+				invalidate(cache, referenceChangeRecord.getOldValue());
+				if (newTargetChangeSet != null) invalidate(cache, newTargetChangeSet.getUnitOfWorkClone());
+			}
+		}
+
+		for (final ObjectChangeSet objectChangeSet : changeSet.getDeletedObjects().keySet()) {
+			final Object clone = objectChangeSet.getUnitOfWorkClone();
+			if (clone == null) continue;
+
+			for (final DatabaseMapping mapping : unitOfWork.getDescriptor(clone).getMappings()) {
+				if (mapping.isOneToOneMapping()) invalidate(cache, mapping.getRealAttributeValueFromObject(clone, unitOfWork));
+			}
+		}
+	}
+
+
+	/**
+	 * Invalidates the given entity within the given cache.
+	 * @param cache the shared cache
+	 * @param entity the entity, or {@code null} for none
+	 */
+	static private void invalidate (final IdentityMapAccessor cache, final Object entity) {
+		if (entity != null) cache.invalidateObject(entity);
+	}
+}
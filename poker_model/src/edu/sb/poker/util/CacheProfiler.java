@@ -0,0 +1,68 @@
+package edu.sb.poker.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.sessions.SessionProfiler;
+import org.eclipse.persistence.sessions.SessionProfilerAdapter;
+
+
+/**
+ * <i>EclipseLink</i> session profiler that counts shared (2nd level) cache hits and misses per entity type, while ignoring
+ * all other profiling events. The profiler is registered using the persistence unit property {@code eclipselink.profiler},
+ * and can be accessed using {@code JpaHelper.getServerSession(entityManagerFactory).getProfiler()}.
+ */
+public class CacheProfiler extends SessionProfilerAdapter {
+	private final Map<String,LongAdder> cacheHits = new ConcurrentHashMap<>();
+	private final Map<String,LongAdder> cacheMisses = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Returns the profile weight, which must not be {@link SessionProfiler#NONE} in order to receive events.
+	 * @return the profile weight
+	 */
+	@Override
+	public int getProfileWeight () {
+		return SessionProfiler.NORMAL;
+	}
+
+
+	/**
+	 * Counts cache hit and cache miss events, and ignores all others.
+	 * @param operationName the operation name
+	 * @param query the query causing the event
+	 * @param session the session
+	 */
+	@Override
+	public void occurred (final String operationName, final DatabaseQuery query, final AbstractSession session) {
+		final Map<String,LongAdder> counters;
+		if (SessionProfiler.CacheHits.equals(operationName)) counters = this.cacheHits;
+		else if (SessionProfiler.CacheMisses.equals(operationName)) counters = this.cacheMisses;
+		else return;
+
+		final String typeName = query == null || query.getReferenceClassName() == null ? "" : query.getReferenceClassName();
+		counters.computeIfAbsent(typeName, key -> new LongAdder()).increment();
+	}
+
+
+	/**
+	 * Returns the cache hit ratios observed so far.
+	 * @return the cache hit ratios within range [0.0, 1.0], sorted and mapped by entity type name
+	 */
+	public Map<String,Double> getHitRatios () {
+		final Map<String,Double> hitRatios = new TreeMap<>();
+		for (final String typeName : this.cacheHits.keySet()) hitRatios.put(typeName, null);
+		for (final String typeName : this.cacheMisses.keySet()) hitRatios.put(typeName, null);
+
+		for (final String typeName : hitRatios.keySet()) {
+			final LongAdder hitCounter = this.cacheHits.get(typeName), missCounter = this.cacheMisses.get(typeName);
+			final long hits = hitCounter == null ? 0 : hitCounter.sum();
+			final long misses = missCounter == null ? 0 : missCounter.sum();
+			hitRatios.put(typeName, hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+		}
+		return hitRatios;
+	}
+}
@@ -0,0 +1,189 @@
+package edu.sb.poker.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+
+/**
+ * Facade for HTTP content encodings, supporting {@value #GZIP} and {@value #DEFLATE} compression. It negotiates encodings
+ * based on {@code Accept-Encoding} header values, decides which content types are worth compressing, and encodes or decodes
+ * content. Content types that are compressed already (like most image, audio and video formats) are considered incompressible,
+ * as compressing them again would merely cost processing time.
+ */
+public class ContentEncodings {
+	static public final String GZIP = "gzip";
+	static public final String DEFLATE = "deflate";
+	static public final String ACCEPT_ENCODING = "Accept-Encoding";
+	static public final String CONTENT_ENCODING = "Content-Encoding";
+	static public final String VARY = "Vary";
+	static private final String EVENT_STREAM_TYPE = "text/event-stream";
+	static private final Set<String> COMPRESSIBLE_APPLICATION_TYPES = Set.of(
+		"application/json", "application/xml", "application/xhtml+xml", "application/javascript", "application/rtf",
+		"application/postscript", "application/java", "image/svg+xml", "audio/wav"
+	);
+
+
+	/**
+	 * Prevents external instantiation.
+	 */
+	private ContentEncodings () {}
+
+
+	/**
+	 * Returns whether or not content of the given type is worth compressing. Event streams are excluded, as compression would
+	 * delay their events until the compressor's buffer fills up.
+	 * @param contentType the content type, optionally including parameters, or {@code null} for none
+	 * @return {@code true} if the content is compressible, {@code false} otherwise
+	 */
+	static public boolean isCompressible (final String contentType) {
+		if (contentType == null) return false;
+		final String mediaType = contentType.split(";")[0].trim().toLowerCase();
+		return (mediaType.startsWith("text/") && !mediaType.equals(EVENT_STREAM_TYPE)) || COMPRESSIBLE_APPLICATION_TYPES.contains(mediaType);
+	}
+
+
+	/**
+	 * Returns the preferred supported encoding acceptable according to the given {@code Accept-Encoding} header value. Gzip
+	 * is preferred over deflate at equal quality, as deflate has historically been implemented inconsistently.
+	 * @param acceptEncoding the {@code Accept-Encoding} header value, or {@code null} for none
+	 * @return the encoding, or {@code null} for none
+	 */
+	static public String negotiate (final String acceptEncoding) {
+		final double gzipQuality = quality(acceptEncoding, GZIP), deflateQuality = quality(acceptEncoding, DEFLATE);
+		if (gzipQuality > 0 & gzipQuality >= deflateQuality) return GZIP;
+		if (deflateQuality > 0) return DEFLATE;
+		return null;
+	}
+
+
+	/**
+	 * Returns whether or not the given encoding is acceptable according to the given {@code Accept-Encoding} header value.
+	 * @param acceptEncoding the {@code Accept-Encoding} header value, or {@code null} for none
+	 * @param encoding the encoding
+	 * @return {@code true} if the encoding is acceptable, {@code false} otherwise
+	 * @throws NullPointerException if the given encoding is {@code null}
+	 */
+	static public boolean accepts (final String acceptEncoding, final String encoding) throws NullPointerException {
+		return quality(acceptEncoding, encoding) > 0;
+	}
+
+
+	/**
+	 * Returns the quality assigned to the given encoding by the given {@code Accept-Encoding} header value. An explicit
+	 * assignment takes precedence over the wildcard {@code *}.
+	 * @param acceptEncoding the {@code Accept-Encoding} header value, or {@code null} for none
+	 * @param encoding the encoding
+	 * @return the quality within range [0, 1]
+	 * @throws NullPointerException if the given encoding is {@code null}
+	 */
+	static private double quality (final String acceptEncoding, final String encoding) throws NullPointerException {
+		if (acceptEncoding == null) return 0;
+
+		Double encodingQuality = null, wildcardQuality = null;
+		for (final String element : acceptEncoding.split(",")) {
+			final String[] parts = element.split(";");
+			final String coding = parts[0].trim().toLowerCase();
+			double quality = 1;
+			for (int index = 1; index < parts.length; ++index) {
+				final String parameter = parts[index].trim();
+				if (!parameter.startsWith("q=")) continue;
+				try {
+					quality = Double.parseDouble(parameter.substring(2));
+				} catch (final NumberFormatException exception) {
+					quality = 0;
+				}
+			}
+
+			if (coding.equals(encoding) || coding.equals("x-" + encoding)) encodingQuality = quality;
+			else if (coding.equals("*")) wildcardQuality = quality;
+		}
+
+		if (encodingQuality != null) return encodingQuality;
+		if (wildcardQuality != null) return wildcardQuality;
+		return 0;
+	}
+
+
+	/**
+	 * Returns a new output stream encoding content written to it using the given encoding into the given byte sink. Note that
+	 * the resulting stream must be closed or finished in order to write the encoding's trailer.
+	 * @param byteSink the byte sink
+	 * @param encoding the encoding, either {@value #GZIP} or {@value #DEFLATE}
+	 * @return the encoder stream
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws IllegalArgumentException if the given encoding is not supported
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static public DeflaterOutputStream newEncoderStream (final OutputStream byteSink, final String encoding) throws NullPointerException, IllegalArgumentException, IOException {
+		if (byteSink == null) throw new NullPointerException();
+		switch (encoding) {
+			case GZIP: return new GZIPOutputStream(byteSink, 0x2000);
+			case DEFLATE: return new DeflaterOutputStream(byteSink);
+			default: throw new IllegalArgumentException(encoding);
+		}
+	}
+
+
+	/**
+	 * Returns a new input stream decoding content read from the given byte source using the given encoding.
+	 * @param byteSource the byte source
+	 * @param encoding the encoding, either {@value #GZIP} or {@value #DEFLATE}
+	 * @return the decoder stream
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws IllegalArgumentException if the given encoding is not supported
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static public InputStream newDecoderStream (final InputStream byteSource, final String encoding) throws NullPointerException, IllegalArgumentException, IOException {
+		if (byteSource == null) throw new NullPointerException();
+		switch (encoding) {
+			case GZIP: return new GZIPInputStream(byteSource, 0x2000);
+			case DEFLATE: return new InflaterInputStream(byteSource);
+			default: throw new IllegalArgumentException(encoding);
+		}
+	}
+
+
+	/**
+	 * Returns the given content encoded using the given encoding.
+	 * @param content the content
+	 * @param encoding the encoding, either {@value #GZIP} or {@value #DEFLATE}
+	 * @return the encoded content
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws IllegalArgumentException if the given encoding is not supported
+	 */
+	static public byte[] encode (final byte[] content, final String encoding) throws NullPointerException, IllegalArgumentException {
+		final ByteArrayOutputStream byteSink = new ByteArrayOutputStream(content.length / 4 + 64);
+		try (OutputStream encoderStream = newEncoderStream(byteSink, encoding)) {
+			encoderStream.write(content);
+		} catch (final IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+		return byteSink.toByteArray();
+	}
+
+
+	/**
+	 * Returns the given content decoded using the given encoding.
+	 * @param content the encoded content
+	 * @param encoding the encoding, either {@value #GZIP} or {@value #DEFLATE}
+	 * @return the decoded content
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws IllegalArgumentException if the given encoding is not supported, or the given content is not encoded properly
+	 */
+	static public byte[] decode (final byte[] content, final String encoding) throws NullPointerException, IllegalArgumentException {
+		try (InputStream decoderStream = newDecoderStream(new ByteArrayInputStream(content), encoding)) {
+			return decoderStream.readAllBytes();
+		} catch (final IOException exception) {
+			throw new IllegalArgumentException(exception);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package edu.sb.poker.util;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+
+/**
+ * Content-addressed file system store for binary content. Content is stored in files named by their lower case hexadecimal
+ * content hash, within a directory tree sharded by the first two and the next two hash characters, for example
+ * {@code 86/00/8600f8cf...}. This keeps directory sizes small, and makes storing idempotent: Content is never overwritten, as
+ * the same name implies the same content. The store is configured using the system property {@value #DIRECTORY_PROPERTY}; if
+ * this property is not set, there is no store. Note that files are stored before the transaction referencing them commits,
+ * which can leave orphaned files behind if it doesn't; these are harmless, and are reused once the same content is stored again.
+ */
+public class ContentStore {
+	static public final String DIRECTORY_PROPERTY = "edu.sb.poker.content.directory";
+	static private final ContentStore INSTANCE = System.getProperty(DIRECTORY_PROPERTY) == null ? null : new ContentStore(Paths.get(System.getProperty(DIRECTORY_PROPERTY)));
+
+	private final Path directory;
+
+
+	/**
+	 * Returns the store configured using the system property {@value #DIRECTORY_PROPERTY}.
+	 * @return the configured store, or {@code null} for none
+	 */
+	static public ContentStore configured () {
+		return INSTANCE;
+	}
+
+
+	/**
+	 * Initializes a new instance.
+	 * @param directory the root directory
+	 * @throws NullPointerException if the given argument is {@code null}
+	 */
+	public ContentStore (final Path directory) throws NullPointerException {
+		this.directory = directory.toAbsolutePath();
+	}
+
+
+	/**
+	 * Returns the root directory.
+	 * @return the root directory
+	 */
+	public Path getDirectory () {
+		return this.directory;
+	}
+
+
+	/**
+	 * Returns the path of the file storing the content with the given hash.
+	 * @param contentHash the lower case hexadecimal content hash
+	 * @return the file path
+	 * @throws NullPointerException if the given argument is {@code null}
+	 * @throws IllegalArgumentException if the given hash is shorter than four characters, or contains path separators
+	 */
+	public Path path (final String contentHash) throws NullPointerException, IllegalArgumentException {
+		if (contentHash.length() < 4 || !contentHash.chars().allMatch(Character::isLetterOrDigit)) throw new IllegalArgumentException();
+		return this.directory.resolve(contentHash.substring(0, 2)).resolve(contentHash.substring(2, 4)).resolve(contentHash);
+	}
+
+
+	/**
+	 * Returns whether or not this store contains the content with the given hash.
+	 * @param contentHash the lower case hexadecimal content hash
+	 * @return {@code true} if the content is stored, {@code false} otherwise
+	 * @throws NullPointerException if the given argument is {@code null}
+	 * @throws IllegalArgumentException if the given hash is shorter than four characters, or contains path separators
+	 */
+	public boolean contains (final String contentHash) throws NullPointerException, IllegalArgumentException {
+		return Files.isRegularFile(this.path(contentHash));
+	}
+
+
+	/**
+	 * Moves the given file into this store, using the given hash as the file's name. If the content is already stored, the
+	 * given file is deleted instead.
+	 * @param contentHash the lower case hexadecimal hash of the file's content
+	 * @param contentFile the file, which must be located on the same file system as the store for efficiency
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws IllegalArgumentException if the given hash is shorter than four characters, or contains path separators
+	 * @throws IOException if there is an I/O related problem
+	 */
+	public void store (final String contentHash, final Path contentFile) throws NullPointerException, IllegalArgumentException, IOException {
+		final Path path = this.path(contentHash);
+		if (Files.isRegularFile(path)) {
+			Files.delete(contentFile);
+			return;
+		}
+
+		Files.createDirectories(path.getParent());
+		final Path stagingFile = Files.createTempFile(path.getParent(), contentHash, ".tmp");
+		try {
+			Files.move(contentFile, stagingFile, REPLACE_EXISTING);
+			Files.move(stagingFile, path, ATOMIC_MOVE);
+		} catch (final FileAlreadyExistsException exception) {
+			// stored concurrently by another thread, with the same content
+		} finally {
+			Files.deleteIfExists(stagingFile);
+		}
+	}
+
+
+	/**
+	 * Opens a channel for reading the content with the given hash.
+	 * @param contentHash the lower case hexadecimal content hash
+	 * @return the file channel, which must be closed by the caller
+	 * @throws NullPointerException if the given argument is {@code null}
+	 * @throws IllegalArgumentException if the given hash is shorter than four characters, or contains path separators
+	 * @throws NoSuchFileException if the content is not stored
+	 * @throws IOException if there is an I/O related problem
+	 */
+	public FileChannel open (final String contentHash) throws NullPointerException, IllegalArgumentException, NoSuchFileException, IOException {
+		return FileChannel.open(this.path(contentHash), READ);
+	}
+}
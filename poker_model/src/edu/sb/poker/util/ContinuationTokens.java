@@ -0,0 +1,57 @@
+package edu.sb.poker.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.Base64;
+
+
+/**
+ * Facade for opaque continuation tokens used in keyset pagination. A token encodes the sort key values of the last element
+ * of a result page, allowing the next page to be queried using a range condition on an indexed sort key instead of skipping
+ * rows with an offset. Therefore, deep pages cost the same as the first one. Note that tokens are opaque to clients, but
+ * neither encrypted nor signed, and must therefore be validated like any other request parameter.
+ */
+public class ContinuationTokens {
+
+	/**
+	 * HTTP response header carrying the continuation token for the next result page, absent on the last page.
+	 */
+	static public final String CONTINUATION_TOKEN = "Continuation-Token";
+
+	static private final String SEPARATOR = "\u0000";
+
+
+	/**
+	 * Prevents external instantiation.
+	 */
+	private ContinuationTokens () {}
+
+
+	/**
+	 * Returns a continuation token encoding the given sort key values.
+	 * @param keys the sort key values
+	 * @return the URL-safe continuation token
+	 * @throws NullPointerException if any of the given keys is {@code null}
+	 * @throws IllegalArgumentException if any of the given keys contains a NUL character
+	 */
+	static public String encode (final String... keys) throws NullPointerException, IllegalArgumentException {
+		for (final String key : keys)
+			if (key.contains(SEPARATOR)) throw new IllegalArgumentException();
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(String.join(SEPARATOR, keys).getBytes(UTF_8));
+	}
+
+
+	/**
+	 * Returns the sort key values encoded within the given continuation token.
+	 * @param token the continuation token
+	 * @param keyCount the expected number of sort key values
+	 * @return the sort key values
+	 * @throws NullPointerException if the given token is {@code null}
+	 * @throws IllegalArgumentException if the given token is malformed, or doesn't contain the given number of keys
+	 */
+	static public String[] decode (final String token, final int keyCount) throws NullPointerException, IllegalArgumentException {
+		final String[] keys = new String(Base64.getUrlDecoder().decode(token), UTF_8).split(SEPARATOR, -1);
+		if (keys.length != keyCount) throw new IllegalArgumentException();
+		return keys;
+	}
+}
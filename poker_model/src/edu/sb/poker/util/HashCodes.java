@@ -101,6 +101,40 @@ public final class HashCodes {
 	}
 
 
+	/**
+	 * Returns a new SHA2 message digest, allowing hash codes to be calculated incrementally for content that is not available
+	 * as a whole, like streamed content.
+	 * @param bitLength the hash bit length, either 224, 256, 384 or 512
+	 * @return the SHA2 message digest
+	 * @throws IllegalArgumentException if the given bit length is neither 224, nor 256, nor 384, nor 512
+	 */
+	static public MessageDigest sha2MessageDigest (final int bitLength) throws IllegalArgumentException {
+		final String algorithm;
+		switch (bitLength) {
+			case 224:
+				algorithm = SHA2_224_ALGORITHM;
+				break;
+			case 256:
+				algorithm = SHA2_256_ALGORITHM;
+				break;
+			case 384:
+				algorithm = SHA2_384_ALGORITHM;
+				break;
+			case 512:
+				algorithm = SHA2_512_ALGORITHM;
+				break;
+			default:
+				throw new IllegalArgumentException();
+		}
+
+		try {
+			return MessageDigest.getInstance(algorithm);
+		} catch (final NoSuchAlgorithmException exception) {
+			throw new AssertionError(exception);
+		}
+	}
+
+
 	/**
 	 * Returns the quasi-unique SHA3 hash of the given binary content.
 	 * @param bitLength the hash bit length, either 224, 256, 384 or 512
@@ -0,0 +1,249 @@
+package edu.sb.poker.util;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+
+/**
+ * Facade for HTTP range requests (RFC 7233), supporting single and multiple byte ranges. Ranges are parsed from the
+ * {@code Range} header, and either served as single part (206 with {@code Content-Range} header), or as
+ * {@code multipart/byteranges} content whose length can be calculated in advance. The content itself is supplied by a
+ * {@link RangeWriter}, which is expected to seek to each range's offset instead of reading the preceding bytes.
+ */
+public class HttpRanges {
+	static public final String RANGE = "Range";
+	static public final String IF_RANGE = "If-Range";
+	static public final String ACCEPT_RANGES = "Accept-Ranges";
+	static public final String CONTENT_RANGE = "Content-Range";
+	static public final String BYTES = "bytes";
+	static public final int PARTIAL_CONTENT = 206, RANGE_NOT_SATISFIABLE = 416;
+	static private final int MAX_RANGE_COUNT = 16;
+	static private final String CRLF = "\r\n";
+
+
+	/**
+	 * Prevents external instantiation.
+	 */
+	private HttpRanges () {}
+
+
+	/**
+	 * Returns the byte ranges requested by the given {@code Range} header value, clipped to the given content size. Malformed
+	 * headers, units other than bytes, and excessive range counts are ignored as permitted by RFC 7233, which causes the
+	 * complete content to be served.
+	 * @param range the {@code Range} header value, or {@code null} for none
+	 * @param size the content size
+	 * @return the satisfiable byte ranges, an empty list if none of the ranges is satisfiable (416), or {@code null} if the
+	 *         complete content shall be served (200)
+	 */
+	static public List<ByteRange> parse (final String range, final long size) {
+		if (range == null || !range.trim().startsWith(BYTES + "=")) return null;
+
+		final String[] specifications = range.trim().substring(BYTES.length() + 1).split(",");
+		if (specifications.length > MAX_RANGE_COUNT) return null;
+
+		final List<ByteRange> ranges = new ArrayList<>();
+		try {
+			for (final String specification : specifications) {
+				final int separatorIndex = specification.indexOf('-');
+				if (separatorIndex == -1) return null;
+				final String first = specification.substring(0, separatorIndex).trim(), last = specification.substring(separatorIndex + 1).trim();
+
+				final long offset, end;
+				if (first.isEmpty()) {
+					final long suffixLength = Long.parseLong(last);
+					if (suffixLength < 0) return null;
+					offset = Math.max(0, size - suffixLength);
+					end = size - 1;
+				} else {
+					offset = Long.parseLong(first);
+					final long lastPosition = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+					if (offset < 0 | lastPosition < offset) return null;
+					end = Math.min(size - 1, lastPosition);
+				}
+
+				if (offset <= end) ranges.add(new ByteRange(offset, end - offset + 1));
+			}
+		} catch (final NumberFormatException exception) {
+			return null;
+		}
+
+		return Collections.unmodifiableList(ranges);
+	}
+
+
+	/**
+	 * Returns a new multipart boundary.
+	 * @return the boundary
+	 */
+	static public String newBoundary () {
+		return UUID.randomUUID().toString().replace("-", "");
+	}
+
+
+	/**
+	 * Returns the {@code Content-Type} header value for multipart content using the given boundary.
+	 * @param boundary the boundary
+	 * @return the multipart content type
+	 */
+	static public String multipartType (final String boundary) {
+		return "multipart/byteranges; boundary=" + boundary;
+	}
+
+
+	/**
+	 * Returns the length of the {@code multipart/byteranges} content for the given ranges.
+	 * @param boundary the boundary
+	 * @param contentType the content type of the parts
+	 * @param size the content size
+	 * @param ranges the byte ranges
+	 * @return the multipart content length
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 */
+	static public long multipartLength (final String boundary, final String contentType, final long size, final List<ByteRange> ranges) throws NullPointerException {
+		long length = closingDelimiter(boundary).length;
+		for (final ByteRange range : ranges)
+			length += partHeader(boundary, contentType, range, size).length + range.getLength() + CRLF.length();
+		return length;
+	}
+
+
+	/**
+	 * Writes the {@code multipart/byteranges} content for the given ranges.
+	 * @param byteSink the byte sink
+	 * @param boundary the boundary
+	 * @param contentType the content type of the parts
+	 * @param size the content size
+	 * @param ranges the byte ranges
+	 * @param rangeWriter the range writer supplying the content of each range
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static public void writeMultipart (final OutputStream byteSink, final String boundary, final String contentType, final long size, final List<ByteRange> ranges, final RangeWriter rangeWriter) throws NullPointerException, IOException {
+		for (final ByteRange range : ranges) {
+			byteSink.write(partHeader(boundary, contentType, range, size));
+			rangeWriter.write(range.getOffset(), range.getLength(), byteSink);
+			byteSink.write(CRLF.getBytes(US_ASCII));
+		}
+		byteSink.write(closingDelimiter(boundary));
+	}
+
+
+	/**
+	 * Transfers the given range of the given file channel's content into the given byte sink, using positional reads.
+	 * @param fileChannel the file channel
+	 * @param offset the start position
+	 * @param length the number of bytes to transfer
+	 * @param byteSink the byte sink
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws EOFException if the file ends before the range does
+	 * @throws IOException if there is an I/O related problem
+	 */
+	static public void transfer (final FileChannel fileChannel, final long offset, final long length, final OutputStream byteSink) throws NullPointerException, EOFException, IOException {
+		final WritableByteChannel channelSink = Channels.newChannel(byteSink);
+		for (long position = 0; position < length; ) {
+			final long bytesTransferred = fileChannel.transferTo(offset + position, length - position, channelSink);
+			if (bytesTransferred <= 0) throw new EOFException();
+			position += bytesTransferred;
+		}
+	}
+
+
+	/**
+	 * Returns the header of a multipart body part.
+	 * @param boundary the boundary
+	 * @param contentType the content type
+	 * @param range the byte range
+	 * @param size the content size
+	 * @return the header bytes, including the preceding delimiter
+	 */
+	static private byte[] partHeader (final String boundary, final String contentType, final ByteRange range, final long size) {
+		return ("--" + boundary + CRLF + "Content-Type: " + contentType + CRLF + CONTENT_RANGE + ": " + range.toContentRange(size) + CRLF + CRLF).getBytes(US_ASCII);
+	}
+
+
+	/**
+	 * Returns the closing delimiter of multipart content.
+	 * @param boundary the boundary
+	 * @return the closing delimiter bytes
+	 */
+	static private byte[] closingDelimiter (final String boundary) {
+		return ("--" + boundary + "--" + CRLF).getBytes(US_ASCII);
+	}
+
+
+
+	/**
+	 * Instances of this class represent satisfiable byte ranges.
+	 */
+	static public class ByteRange {
+		private final long offset;
+		private final long length;
+
+
+		/**
+		 * Initializes a new instance.
+		 * @param offset the offset
+		 * @param length the length
+		 */
+		public ByteRange (final long offset, final long length) {
+			this.offset = offset;
+			this.length = length;
+		}
+
+
+		/**
+		 * Returns the offset.
+		 * @return the offset of the first byte
+		 */
+		public long getOffset () {
+			return this.offset;
+		}
+
+
+		/**
+		 * Returns the length.
+		 * @return the number of bytes
+		 */
+		public long getLength () {
+			return this.length;
+		}
+
+
+		/**
+		 * Returns the {@code Content-Range} header value for this range.
+		 * @param size the content size
+		 * @return the content range
+		 */
+		public String toContentRange (final long size) {
+			return BYTES + " " + this.offset + "-" + (this.offset + this.length - 1) + "/" + size;
+		}
+	}
+
+
+
+	/**
+	 * Writes a range of some content, seeking to it's offset without reading the preceding bytes.
+	 */
+	@FunctionalInterface
+	static public interface RangeWriter {
+
+		/**
+		 * Writes the given range of the content.
+		 * @param offset the offset
+		 * @param length the length
+		 * @param byteSink the byte sink
+		 * @throws IOException if there is an I/O related problem
+		 */
+		void write (long offset, long length, OutputStream byteSink) throws IOException;
+	}
+}
@@ -31,7 +31,9 @@ import javax.ws.rs.ext.Provider;
  * one.</li>
  * </ul>
  * Note that the use of a thread local variable for entity manager injection is based on the precondition that any HTTP request
- * is processed within a single thread. This assumption does hold in standard compatible environments, like Jersey.
+ * is processed within a single thread. This assumption does hold in standard compatible environments, like Jersey, both for
+ * virtual threads per request and for pooled platform threads. As pooled threads are reused, an entity manager left behind by
+ * a previous request whose entity stream has never been closed is closed before a new one is associated with the thread.
  */
 @Provider
 @Priority(100)
@@ -109,6 +111,23 @@ public class RestJpaLifecycleProvider implements ContainerRequestFilter, Contain
 	}
 
 
+	/**
+	 * Closes the entity manager associated with both the current thread and the given persistence unit ahead of the
+	 * request's end, rolling back it's active transaction. This is required for requests whose response outlasts the
+	 * resource method, like event streams, as they would otherwise hold on to the entity manager until they end.
+	 * @param persistenceUnitName the persistence unit name
+	 * @throws NullPointerException if the given argument is {@code null}
+	 * @throws IllegalArgumentException if there is no lifecycle provider associated with the given persistence unit
+	 */
+	static public void release (final String persistenceUnitName) throws NullPointerException, IllegalArgumentException {
+		if (persistenceUnitName == null) throw new NullPointerException();
+
+		final RestJpaLifecycleProvider provider = INSTANCES.get(persistenceUnitName);
+		if (provider == null) throw new IllegalArgumentException();
+		provider.closeEntityManager();
+	}
+
+
 	/**
 	 * Initializes a new instance by creating an entity manager factory for the given argument, and initializing
 	 * a new entity manager thread local reference.
@@ -155,10 +174,17 @@ public class RestJpaLifecycleProvider implements ContainerRequestFilter, Contain
 	/**
 	 * This operation is called by the JAX-RS runtime before an HTTP request is processed withing the current thread. It creates
 	 * a new entity manager instance using this provider's entity manager factory, and stores it within the thread local
-	 * reference associated with this provider's persistence unit name.
+	 * reference associated with this provider's persistence unit name. A stale entity manager still associated with the
+	 * current thread is closed beforehand, which prevents it's transaction and persistence context from leaking into this
+	 * request.
 	 * @param requestContext the (optional) JAX-RS request context
 	 */
 	public void filter (final ContainerRequestContext requestContext) {
+		if (this.entityManagerReference.get() != null) {
+			Logger.getGlobal().log(Level.WARNING, "Closing stale entity manager of persistence unit \"{0}\" left behind within the current thread.", this.persistenceUnitName);
+			this.closeEntityManager();
+		}
+
 		final EntityManager entityManager = this.entityManagerFactory.createEntityManager();
 		entityManager.getTransaction().begin();
 		this.entityManagerReference.set(entityManager);
@@ -179,6 +205,14 @@ public class RestJpaLifecycleProvider implements ContainerRequestFilter, Contain
 	public void filter (final ContainerRequestContext requestContext, final ContainerResponseContext responseContext) throws NullPointerException {
 		final FilterOutputStream triggerStream = new FilterOutputStream(responseContext.getEntityStream()) {
 
+			/**
+			 * Writes the given bytes as a whole, instead of one byte at a time as inherited.
+			 */
+			public void write (final byte[] buffer, final int offset, final int length) throws IOException {
+				this.out.write(buffer, offset, length);
+			}
+
+
 			/**
 			 * {@inheritDoc}
 			 */
@@ -0,0 +1,130 @@
+package edu.sb.poker.util;
+
+import static javax.ws.rs.core.Response.Status.CONFLICT;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceException;
+import javax.persistence.RollbackException;
+import javax.ws.rs.ClientErrorException;
+
+
+/**
+ * Facade for JAX-RS based transaction handling, complementing the request-scoped transaction demarcation of
+ * {@link RestJpaLifecycleProvider}. Operations are committed and automatically re-executed a bounded number of times if
+ * their commit fails because of an optimistic locking conflict, which avoids both pessimistic locks and pushing retries
+ * onto clients. All other commit failures, as well as conflicts that persist after the last attempt, are mapped to
+ * {@link ClientErrorException} (409).
+ */
+public class RestTransactions {
+	static public final int DEFAULT_ATTEMPTS = 3;
+	static private final int BACKOFF_MILLIS = 10;
+
+
+	/**
+	 * Prevents external instantiation.
+	 */
+	private RestTransactions () {}
+
+
+	/**
+	 * Executes the given operation and commits the current transaction of the given entity manager, using
+	 * {@link #DEFAULT_ATTEMPTS} attempts.
+	 * @param <T> the result type
+	 * @param entityManager the entity manager
+	 * @param operation the operation to be executed within the transaction
+	 * @return the operation's result
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws ClientErrorException (HTTP 409) if the commit fails
+	 * @see #commit(EntityManager, int, Supplier)
+	 */
+	static public <T> T commit (final EntityManager entityManager, final Supplier<T> operation) throws NullPointerException, ClientErrorException {
+		return commit(entityManager, DEFAULT_ATTEMPTS, operation);
+	}
+
+
+	/**
+	 * Executes the given operation and commits the current transaction of the given entity manager. If the commit fails due
+	 * to an optimistic locking conflict, the conflicting entity is evicted from the 2nd level cache, the persistence context is
+	 * cleared, and the operation is re-executed within a new transaction after a short randomized back-off. Therefore, the
+	 * operation must (re-)load all entities it modifies, and must not have side effects outside of the transaction. In any
+	 * case, a new transaction is active once this method returns.
+	 * @param <T> the result type
+	 * @param entityManager the entity manager
+	 * @param maxAttempts the maximum number of attempts
+	 * @param operation the operation to be executed within the transaction
+	 * @return the operation's result
+	 * @throws NullPointerException if any of the given arguments is {@code null}
+	 * @throws IllegalArgumentException if the given number of attempts is not strictly positive
+	 * @throws ClientErrorException (HTTP 409) if the commit fails
+	 */
+	static public <T> T commit (final EntityManager entityManager, final int maxAttempts, final Supplier<T> operation) throws NullPointerException, IllegalArgumentException, ClientErrorException {
+		if (entityManager == null | operation == null) throw new NullPointerException();
+		if (maxAttempts <= 0) throw new IllegalArgumentException();
+
+		for (int attempt = 1; true; ++attempt) {
+			try {
+				final T result = operation.get();
+				entityManager.getTransaction().commit();
+				return result;
+			} catch (final PersistenceException exception) {
+				final Throwable conflict = optimisticLockConflict(exception);
+				if (conflict == null & !(exception instanceof RollbackException)) throw exception;
+				if (conflict == null | attempt == maxAttempts) throw new ClientErrorException(CONFLICT);
+
+				if (entityManager.getTransaction().isActive()) entityManager.getTransaction().rollback();
+				evict(entityManager.getEntityManagerFactory(), conflict);
+				entityManager.clear();
+				backOff(attempt);
+			} finally {
+				if (!entityManager.getTransaction().isActive()) entityManager.getTransaction().begin();
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the optimistic locking conflict within the cause chain of the given exception.
+	 * @param exception the exception
+	 * @return the optimistic locking exception, or {@code null} for none
+	 */
+	static private Throwable optimisticLockConflict (final Throwable exception) {
+		for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+			if (cause instanceof OptimisticLockException | cause instanceof org.eclipse.persistence.exceptions.OptimisticLockException) return cause;
+			if (cause.getCause() == cause) break;
+		}
+		return null;
+	}
+
+
+	/**
+	 * Evicts the entity causing the given optimistic locking conflict from the 2nd level cache, if it is known.
+	 * @param entityManagerFactory the entity manager factory
+	 * @param conflict the optimistic locking exception
+	 */
+	static private void evict (final EntityManagerFactory entityManagerFactory, final Throwable conflict) {
+		final Object entity = conflict instanceof OptimisticLockException
+			? ((OptimisticLockException) conflict).getEntity()
+			: ((org.eclipse.persistence.exceptions.OptimisticLockException) conflict).getObject();
+		if (entity == null) return;
+
+		final Object identity = entityManagerFactory.getPersistenceUnitUtil().getIdentifier(entity);
+		if (identity != null) entityManagerFactory.getCache().evict(entity.getClass(), identity);
+	}
+
+
+	/**
+	 * Pauses the current thread for a short randomized period that grows with the given attempt number, in order to avoid
+	 * competing requests colliding again immediately.
+	 * @param attempt the attempt number
+	 */
+	static private void backOff (final int attempt) {
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextInt(BACKOFF_MILLIS * attempt) + 1);
+		} catch (final InterruptedException exception) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
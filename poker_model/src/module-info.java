@@ -1,5 +1,7 @@
 module poker_model {
 	requires transitive java.logging;
+	requires java.management;
+	requires java.net.http;
 	requires transitive java.validation;
 	requires transitive javax.annotation.api;
 